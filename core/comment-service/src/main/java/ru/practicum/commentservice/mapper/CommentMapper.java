@@ -3,6 +3,7 @@ package ru.practicum.commentservice.mapper;
 import org.springframework.stereotype.Component;
 import ru.practicum.commentservice.dto.*;
 import ru.practicum.commentservice.model.Comment;
+import ru.practicum.userclient.dto.UserRequestDto;
 
 import java.time.LocalDateTime;
 
@@ -7,7 +7,7 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import ru.practicum.commentservice.client.EventClient;
-import ru.practicum.commentservice.client.UserClient;
+import ru.practicum.userclient.UserResolver;
 import ru.practicum.commentservice.dto.CommentDtoRequest;
 import ru.practicum.commentservice.dto.CommentDtoResponse;
 import ru.practicum.commentservice.dto.EventFullDto;
@@ -17,11 +17,13 @@ import ru.practicum.commentservice.model.QComment;
 import ru.practicum.commentservice.repo.CommentRepository;
 import ru.practicum.commentservice.model.EventState;
 import ru.practicum.commentservice.exception.*;
-import ru.practicum.commentservice.dto.UserRequestDto;
+import ru.practicum.userclient.dto.UserRequestDto;
 import com.querydsl.core.types.dsl.BooleanExpression;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @Slf4j
@@ -31,7 +33,7 @@ public class CommentServiceImpl implements CommentService {
 
     private final CommentRepository commentRepository;
     private final EventClient eventClient;
-    private final UserClient userClient;
+    private final UserResolver userResolver;
     private final CommentMapper commentMapper;
 
     @Override
@@ -47,7 +49,7 @@ public class CommentServiceImpl implements CommentService {
         EventFullDto event = getPublishedEvent(eventId);
         Comment comment = getValidComment(userId, eventId, commId);
         comment.setText(dto.getText());
-        UserRequestDto user = userClient.getUsersById(List.of(userId)).getFirst();
+        UserRequestDto user = getUser(userId);
 
         return CommentMapper.toDto(commentRepository.save(comment), user, event);
     }
@@ -63,7 +65,7 @@ public class CommentServiceImpl implements CommentService {
         Comment comment = commentRepository.findById(commentId)
                 .orElseThrow(() -> new CommentNotFoundException(commentId));
 
-        UserRequestDto user = userClient.getUsersById(List.of(comment.getUserId())).getFirst();
+        UserRequestDto user = userResolver.resolve(comment.getUserId());
         return CommentMapper.toDto(comment, user, getEvent(comment.getEventId()));
     }
 
@@ -71,8 +73,9 @@ public class CommentServiceImpl implements CommentService {
     public List<CommentDtoResponse> findCommentsByEventId(Long eventId) {
         EventFullDto event = getEvent(eventId);
         List<Comment> comments = commentRepository.findAllByEventId(eventId);
+        Map<Long, UserRequestDto> users = userResolver.resolve(comments.stream().map(Comment::getUserId).toList());
         return comments.stream()
-                .map(c -> CommentMapper.toDto(c, userClient.getUsersById(List.of(c.getUserId())).getFirst(), event))
+                .map(c -> CommentMapper.toDto(c, users.get(c.getUserId()), event))
                 .toList();
     }
 
@@ -81,8 +84,9 @@ public class CommentServiceImpl implements CommentService {
         EventFullDto event = getEvent(eventId);
         validateUserExists(userId);
         List<Comment> comments = commentRepository.findAllByEventId(eventId);
+        UserRequestDto user = userResolver.resolve(userId);
         return comments.stream()
-                .map(c -> CommentMapper.toDto(c, userClient.getUsersById(List.of(userId)).getFirst(), event))
+                .map(c -> CommentMapper.toDto(c, user, event))
                 .toList();
     }
 
@@ -102,9 +106,12 @@ public class CommentServiceImpl implements CommentService {
         }
 
         List<Comment> comments = pageComments.getContent();
+        Map<Long, UserRequestDto> usersById = userResolver.resolve(comments.stream().map(Comment::getUserId).toList());
+        Map<Long, EventFullDto> eventsById = new HashMap<>();
 
         return comments.stream()
-                .map(c -> CommentMapper.toDto(c, userClient.getUsersById(List.of(c.getUserId())).getFirst(), getEvent(c.getEventId())))
+                .map(c -> CommentMapper.toDto(c, usersById.get(c.getUserId()),
+                        eventsById.computeIfAbsent(c.getEventId(), this::getEvent)))
                 .toList();
     }
 
@@ -135,7 +142,7 @@ public class CommentServiceImpl implements CommentService {
     }
 
     private UserRequestDto getUser(Long userId) {
-        UserRequestDto user = userClient.getUsersById(List.of(userId)).getFirst();
+        UserRequestDto user = userResolver.resolve(userId);
         if (user == null) {
             throw new UserNotFoundException(userId);
         }
@@ -143,7 +150,7 @@ public class CommentServiceImpl implements CommentService {
     }
 
     private void validateUserExists(Long userId) {
-        UserRequestDto user = userClient.getUsersById(List.of(userId)).getFirst();
+        UserRequestDto user = userResolver.resolve(userId);
         if (user == null) {
             throw new UserNotFoundException(userId);
         }
@@ -11,6 +11,7 @@ import ru.practicum.eventservice.category.mapper.CategoryMapper;
 import ru.practicum.eventservice.category.model.Category;
 import ru.practicum.eventservice.category.repo.CategoryRepository;
 import ru.practicum.eventservice.event.repo.EventRepository;
+import ru.practicum.eventservice.event.service.EventReadCache;
 import ru.practicum.eventservice.exception.CategoryNotFoundException;
 import ru.practicum.eventservice.exception.ConflictException;
 
@@ -23,6 +24,7 @@ public class CategoryServiceImpl implements CategoryService {
 
     private final CategoryRepository categoryRepository;
     private final EventRepository eventRepository;
+    private final EventReadCache eventReadCache;
 
     @Override
     public CategoryRequestDto create(CategoryCreateDto categoryCreateDto) {
@@ -40,9 +42,11 @@ public class CategoryServiceImpl implements CategoryService {
 
         category.setName(categoryCreateDto.getName());
 
-        return CategoryMapper.toRequestDto(
+        CategoryRequestDto updated = CategoryMapper.toRequestDto(
                 categoryRepository.save(category)
         );
+        eventReadCache.invalidateCategory(catId);
+        return updated;
     }
 
     @Override
@@ -2,6 +2,7 @@ package ru.practicum.eventservice.client;
 
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.eventservice.dto.event.EventUpdateRequestStatusDto;
 import ru.practicum.eventservice.request.model.Request;
 
 import java.util.List;
@@ -19,4 +20,10 @@ public interface RequestClient {
     @PutMapping
     Request updateInternal(@RequestBody Request request);
 
+    @PutMapping("/events/{eventId}/status")
+    List<Request> updateStatus(@PathVariable Long eventId, @RequestBody EventUpdateRequestStatusDto updateDto);
+
+    @PutMapping("/events/{eventId}/reject-pending")
+    List<Request> rejectPending(@PathVariable Long eventId);
+
 }
@@ -0,0 +1,17 @@
+package ru.practicum.eventservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@Getter
+@Setter
+@ConfigurationProperties("event-cache")
+public class EventCacheConfig {
+    private int maxSize = 10_000;
+    private Duration ttl = Duration.ofSeconds(30);
+}
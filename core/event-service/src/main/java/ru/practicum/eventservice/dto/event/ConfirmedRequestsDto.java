@@ -0,0 +1,15 @@
+package ru.practicum.eventservice.dto.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ConfirmedRequestsDto {
+
+    private Integer granted;
+
+    private Integer confirmed;
+}
@@ -0,0 +1,4 @@
+package ru.practicum.eventservice.dto.event;
+
+public record VersionedEventDto(EventFullDto event, String etag) {
+}
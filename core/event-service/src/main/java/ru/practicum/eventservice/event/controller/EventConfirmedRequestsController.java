@@ -0,0 +1,58 @@
+package ru.practicum.eventservice.event.controller;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import ru.practicum.eventservice.dto.event.ConfirmedRequestsDto;
+import ru.practicum.eventservice.event.service.EventService;
+
+/**
+ * Confirmed-request counters for request-service. Kept under /internal, which the gateway does not route.
+ */
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping(path = "/internal/events/{id}/confirmed-requests")
+public class EventConfirmedRequestsController {
+    private final EventService eventService;
+
+    @PutMapping("/increment")
+    public ResponseEntity<Boolean> incrementConfirmedRequests(@PathVariable("id") Long eventId) {
+
+        log.info("--> PUT /internal/events/{}/confirmed-requests/increment request", eventId);
+        boolean incremented = eventService.incrementConfirmedRequests(eventId);
+        log.info("<-- PUT /internal/events/{}/confirmed-requests/increment response: {}", eventId, incremented);
+
+        return ResponseEntity
+                .ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(incremented);
+    }
+
+    @PutMapping("/decrement")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void decrementConfirmedRequests(@PathVariable("id") Long eventId,
+                                           @RequestParam(defaultValue = "1") int count) {
+
+        log.info("--> PUT /internal/events/{}/confirmed-requests/decrement request, count={}", eventId, count);
+        eventService.decrementConfirmedRequests(eventId, count);
+        log.info("<-- PUT /internal/events/{}/confirmed-requests/decrement response: no content", eventId);
+    }
+
+    @PutMapping("/reserve")
+    public ResponseEntity<ConfirmedRequestsDto> reserveConfirmedRequests(@PathVariable("id") Long eventId,
+                                                                         @RequestParam int count) {
+
+        log.info("--> PUT /internal/events/{}/confirmed-requests/reserve request, count={}", eventId, count);
+        ConfirmedRequestsDto reservation = eventService.reserveConfirmedRequests(eventId, count);
+        log.info("<-- PUT /internal/events/{}/confirmed-requests/reserve response: {}", eventId, reservation);
+
+        return ResponseEntity
+                .ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(reservation);
+    }
+}
@@ -3,10 +3,13 @@ package ru.practicum.eventservice.event.controller;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.eventservice.dto.event.EventFullDto;
+import ru.practicum.eventservice.dto.event.VersionedEventDto;
 import ru.practicum.eventservice.event.service.EventService;
 import ru.practicum.grpc.stats.recommendations.RecommendedEventProto;
 
@@ -35,16 +38,26 @@ public class EventInternalController {
     }
 
     @GetMapping("/{id}/internal")
-    public ResponseEntity<EventFullDto> getByIdInternal(@PathVariable("id") Long eventId) {
+    public ResponseEntity<EventFullDto> getByIdInternal(@PathVariable("id") Long eventId,
+                                                        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false)
+                                                        String ifNoneMatch) {
 
         log.info("--> GET /events/{}/internal request", eventId);
-        EventFullDto event = eventService.getByIdInternal(eventId);
-        log.info("<-- GET /events/{}/internal response: {}", eventId, event);
+        VersionedEventDto event = eventService.getByIdInternal(eventId);
+        if (event.etag().equals(ifNoneMatch)) {
+            log.info("<-- GET /events/{}/internal not modified", eventId);
+            return ResponseEntity
+                    .status(HttpStatus.NOT_MODIFIED)
+                    .eTag(event.etag())
+                    .build();
+        }
+        log.info("<-- GET /events/{}/internal response: {}", eventId, event.event());
 
         return ResponseEntity
                 .ok()
                 .contentType(MediaType.APPLICATION_JSON)
-                .body(event);
+                .eTag(event.etag())
+                .body(event.event());
     }
 
     @PutMapping("/{id}/like")
@@ -4,7 +4,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 import ru.practicum.eventservice.category.model.Category;
 import ru.practicum.eventservice.dto.event.*;
-import ru.practicum.eventservice.dto.user.UserRequestDto;
+import ru.practicum.userclient.dto.UserRequestDto;
 import ru.practicum.eventservice.dto.user.UserShortDto;
 import ru.practicum.eventservice.event.model.*;
 
@@ -29,7 +29,8 @@ public class Event {
     @JoinColumn(name = "category_id")
     private Category category;
 
-    @Column(name = "confirmed_requests", nullable = false)
+    // changed only by the atomic counter updates in EventRepository, never by an entity save
+    @Column(name = "confirmed_requests", nullable = false, updatable = false)
     @ColumnDefault("0")
     private Integer confirmedRequests;
 
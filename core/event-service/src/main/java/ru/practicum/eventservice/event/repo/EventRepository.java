@@ -1,8 +1,12 @@
 package ru.practicum.eventservice.event.repo;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.querydsl.QuerydslPredicateExecutor;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.eventservice.event.model.Event;
 
 import java.util.List;
@@ -14,4 +18,42 @@ public interface EventRepository extends JpaRepository<Event, Long>, QuerydslPre
     Optional<Event> findFirstByCategoryId(Long categoryId);
 
     List<Event> findByIdIn(Set<Long> eventIds);
+
+    @Modifying
+    @Transactional
+    @Query(
+            value = "update events set confirmed_requests = confirmed_requests + 1 " +
+                    "where id = :eventId " +
+                    "and (coalesce(participant_limit, 0) = 0 or confirmed_requests < participant_limit)",
+            nativeQuery = true
+    )
+    int incrementConfirmedRequests(@Param("eventId") Long eventId);
+
+    @Modifying
+    @Transactional
+    @Query(
+            value = "update events set confirmed_requests = greatest(confirmed_requests - :count, 0) " +
+                    "where id = :eventId",
+            nativeQuery = true
+    )
+    int decrementConfirmedRequests(@Param("eventId") Long eventId, @Param("count") int count);
+
+    // grants as many of the requested slots as are still free; the row is locked only for this statement
+    @Transactional
+    @Query(
+            value = "with locked as (select id, confirmed_requests as before from events where id = :eventId for update) " +
+                    "update events e set confirmed_requests = case " +
+                    "when coalesce(e.participant_limit, 0) = 0 then e.confirmed_requests + :count " +
+                    "else greatest(e.confirmed_requests, least(e.confirmed_requests + :count, e.participant_limit)) end " +
+                    "from locked where e.id = locked.id " +
+                    "returning e.confirmed_requests - locked.before as granted, e.confirmed_requests as confirmed",
+            nativeQuery = true
+    )
+    Optional<ConfirmedReservation> reserveConfirmedRequests(@Param("eventId") Long eventId, @Param("count") int count);
+
+    interface ConfirmedReservation {
+        Integer getGranted();
+
+        Integer getConfirmed();
+    }
 }
@@ -0,0 +1,150 @@
+package ru.practicum.eventservice.event.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.DigestUtils;
+import ru.practicum.eventservice.config.EventCacheConfig;
+import ru.practicum.eventservice.dto.event.EventFullDto;
+import ru.practicum.eventservice.dto.event.VersionedEventDto;
+import ru.practicum.userclient.UserDeletedEvent;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+import java.util.function.Predicate;
+
+/**
+ * Bounded LRU cache of assembled {@link EventFullDto}s for internal reads, with expiry after load.
+ * Every invalidation bumps a version; a load that raced with an invalidation is returned but not
+ * cached. Writes inside a transaction invalidate again after commit, so a reader cannot cache the
+ * pre-commit state in between. Entries embed the category and the initiator, so renaming a category
+ * or deleting a user drops every entry that refers to it. The ETag is a digest of the serialized dto,
+ * so it is the same on every instance.
+ */
+@Component
+public class EventReadCache {
+    private final ObjectMapper objectMapper;
+    private final long ttlNanos;
+    private final Map<Long, CachedEvent> events;
+    private final AtomicLong version = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter invalidations;
+
+    public EventReadCache(ObjectMapper objectMapper, EventCacheConfig config, MeterRegistry registry) {
+        this.objectMapper = objectMapper;
+        this.ttlNanos = config.getTtl().toNanos();
+        int maxSize = config.getMaxSize();
+        this.events = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedEvent> eldest) {
+                return size() > maxSize;
+            }
+        };
+
+        this.hits = Counter.builder("event.cache.requests").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("event.cache.requests").tag("result", "miss").register(registry);
+        this.invalidations = Counter.builder("event.cache.invalidations").register(registry);
+        Gauge.builder("event.cache.size", this, EventReadCache::size).register(registry);
+    }
+
+    public VersionedEventDto get(long eventId, LongFunction<EventFullDto> loader) {
+        long now = System.nanoTime();
+        synchronized (events) {
+            CachedEvent cached = events.get(eventId);
+            if (cached != null && now - cached.loadedAt() < ttlNanos) {
+                hits.increment();
+                return cached.event();
+            }
+        }
+
+        misses.increment();
+        long loadVersion = version.get();
+        EventFullDto event = loader.apply(eventId);
+        VersionedEventDto versioned = new VersionedEventDto(event, etagOf(event));
+        synchronized (events) {
+            if (version.get() == loadVersion) {
+                events.put(eventId, new CachedEvent(versioned, now));
+            }
+        }
+        return versioned;
+    }
+
+    public void invalidate(long eventId) {
+        evict(eventId);
+        afterCommit(() -> evict(eventId));
+    }
+
+    public void invalidateCategory(long categoryId) {
+        Predicate<EventFullDto> affected = event ->
+                event.getCategory() != null && Objects.equals(event.getCategory().getId(), categoryId);
+        evictWhere(affected);
+        afterCommit(() -> evictWhere(affected));
+    }
+
+    public void invalidateInitiator(long userId) {
+        Predicate<EventFullDto> affected = event ->
+                event.getInitiator() != null && Objects.equals(event.getInitiator().getId(), userId);
+        evictWhere(affected);
+        afterCommit(() -> evictWhere(affected));
+    }
+
+    @EventListener
+    public void onUserDeleted(UserDeletedEvent deleted) {
+        invalidateInitiator(deleted.userId());
+    }
+
+    public int size() {
+        synchronized (events) {
+            return events.size();
+        }
+    }
+
+    private void evict(long eventId) {
+        synchronized (events) {
+            version.incrementAndGet();
+            events.remove(eventId);
+        }
+        invalidations.increment();
+    }
+
+    private void evictWhere(Predicate<EventFullDto> affected) {
+        synchronized (events) {
+            version.incrementAndGet();
+            events.values().removeIf(cached -> affected.test(cached.event().event()));
+        }
+        invalidations.increment();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        }
+    }
+
+    private String etagOf(EventFullDto event) {
+        try {
+            return "\"" + DigestUtils.md5DigestAsHex(objectMapper.writeValueAsBytes(event)) + "\"";
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize event " + event.getId(), e);
+        }
+    }
+
+    private record CachedEvent(VersionedEventDto event, long loadedAt) {
+    }
+}
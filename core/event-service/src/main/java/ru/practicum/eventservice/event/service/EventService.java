@@ -21,12 +21,18 @@ public interface EventService {
 
         EventFullDto getByIdPrivate(Long userId, Long eventId);
 
-        EventFullDto getByIdInternal(Long eventId);
+        VersionedEventDto getByIdInternal(Long eventId);
 
         EventFullDto update(Long eventId, EventUpdateAdminDto eventDto);
 
         EventFullDto updateInternal(Long eventId, EventFullDto eventDto);
 
+        boolean incrementConfirmedRequests(Long eventId);
+
+        void decrementConfirmedRequests(Long eventId, int count);
+
+        ConfirmedRequestsDto reserveConfirmedRequests(Long eventId, int count);
+
         EventFullDto updatePrivate(Long userId, Long eventId, EventUpdateUserDto eventUpdateDto);
 
         EventFullDto create(Long userId, EventCreateDto eventDto);
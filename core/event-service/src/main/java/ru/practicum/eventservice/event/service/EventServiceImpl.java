@@ -3,6 +3,7 @@ package ru.practicum.eventservice.event.service;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import jakarta.transaction.Transactional;
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
@@ -14,10 +15,10 @@ import ru.practicum.client.RecommendationClient;
 import ru.practicum.eventservice.category.model.Category;
 import ru.practicum.eventservice.category.repo.CategoryRepository;
 import ru.practicum.eventservice.client.RequestClient;
-import ru.practicum.eventservice.client.UserClient;
+import ru.practicum.userclient.UserResolver;
 import ru.practicum.eventservice.dto.event.*;
 import ru.practicum.eventservice.dto.request.RequestEventDto;
-import ru.practicum.eventservice.dto.user.UserRequestDto;
+import ru.practicum.userclient.dto.UserRequestDto;
 import ru.practicum.eventservice.event.mapper.EventMapper;
 import ru.practicum.eventservice.event.model.*;
 import ru.practicum.eventservice.event.repo.EventRepository;
@@ -34,6 +35,7 @@ import java.time.temporal.ChronoUnit;
 import java.util.*;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @AllArgsConstructor
 @ComponentScan(value = {"ru.yandex.practicum.ewm", "ru.practicum.client"})
@@ -41,10 +43,11 @@ public class EventServiceImpl implements EventService {
     private final EventRepository eventRepository;
     private final CategoryRepository categoryRepository;
     private final RequestClient requestClient;
-    private final UserClient userClient;
+    private final UserResolver userResolver;
     private final EventMapper mapper;
     private final CollectorClient grpcUserActionClient;
     private final RecommendationClient grpcEventSimilarityClient;
+    private final EventReadCache eventReadCache;
 
     @Override
     public List<EventFullDto> getAdmin(AdminEventParams params) {
@@ -63,9 +66,7 @@ public class EventServiceImpl implements EventService {
         List<Event> foundEvents = pageEvents.getContent();
 
         List<Long> userIds = foundEvents.stream().map(Event::getInitiatorId).toList();
-        Map<Long, UserRequestDto> users = userClient.getUsersById(userIds)
-                .stream()
-                .collect(Collectors.toMap(UserRequestDto::getId, u -> u));
+        Map<Long, UserRequestDto> users = userResolver.resolve(userIds);
 
         return foundEvents.stream()
                 .map(e -> mapper.toEventFullDto(e, users.get(e.getInitiatorId())))
@@ -116,9 +117,7 @@ public class EventServiceImpl implements EventService {
         }
 
         List<Long> userIds = foundEvents.stream().map(Event::getInitiatorId).toList();
-        Map<Long, UserRequestDto> users = userClient.getUsersById(userIds)
-                .stream()
-                .collect(Collectors.toMap(UserRequestDto::getId, u -> u));
+        Map<Long, UserRequestDto> users = userResolver.resolve(userIds);
 
         return foundEvents.stream()
                 .map(e -> mapper.toEventShortDto(e, users.get(e.getInitiatorId())))
@@ -127,7 +126,7 @@ public class EventServiceImpl implements EventService {
 
     @Override
     public List<EventShortDto> getPrivate(PrivateEventParams params) {
-        UserRequestDto user = userClient.getUsersById(List.of(params.getUserId())).getFirst();
+        UserRequestDto user = userResolver.resolve(params.getUserId());
         if (user == null) {
             throw new UserNotFoundException(params.getUserId());
         }
@@ -142,9 +141,7 @@ public class EventServiceImpl implements EventService {
         List<Event> foundEvents = pageEvents.getContent();
 
         List<Long> userIds = foundEvents.stream().map(Event::getInitiatorId).toList();
-        Map<Long, UserRequestDto> users = userClient.getUsersById(userIds)
-                .stream()
-                .collect(Collectors.toMap(UserRequestDto::getId, u -> u));
+        Map<Long, UserRequestDto> users = userResolver.resolve(userIds);
 
         return foundEvents.stream()
                 .map(e -> mapper.toEventShortDto(e, users.get(e.getInitiatorId())))
@@ -200,7 +197,11 @@ public class EventServiceImpl implements EventService {
     }
 
     @Override
-    public EventFullDto getByIdInternal(Long eventId) {
+    public VersionedEventDto getByIdInternal(Long eventId) {
+        return eventReadCache.get(eventId, this::loadByIdInternal);
+    }
+
+    private EventFullDto loadByIdInternal(long eventId) {
         Optional<Event> event = eventRepository.findById(eventId);
         if (event.isEmpty()) {
             throw new EventNotFoundException(eventId);
@@ -262,6 +263,7 @@ public class EventServiceImpl implements EventService {
 
         Event updEvent = mapper.toEventFromUpdateAdmin(eventDto, category.get(), event.get());
         updEvent = eventRepository.save(updEvent);
+        eventReadCache.invalidate(eventId);
 
         Long userId = updEvent.getInitiatorId();
         UserRequestDto user = getUserOrThrow(userId);;
@@ -282,12 +284,60 @@ public class EventServiceImpl implements EventService {
         Event updEvent = mapper.toEventFromEventFullDto(eventDto);
         updEvent.setId(eventId);
         updEvent = eventRepository.save(updEvent);
+        eventReadCache.invalidate(eventId);
 
         Long userId = updEvent.getInitiatorId();
         UserRequestDto user = getUserOrThrow(userId);;
         return mapper.toEventFullDto(updEvent, user);
     }
 
+    @Override
+    public boolean incrementConfirmedRequests(Long eventId) {
+        boolean incremented = eventRepository.incrementConfirmedRequests(eventId) > 0;
+        if (incremented) {
+            eventReadCache.invalidate(eventId);
+        }
+        return incremented;
+    }
+
+    @Override
+    public void decrementConfirmedRequests(Long eventId, int count) {
+        if (count <= 0) {
+            return;
+        }
+        if (eventRepository.decrementConfirmedRequests(eventId, count) == 0) {
+            throw new EventNotFoundException(eventId);
+        }
+        eventReadCache.invalidate(eventId);
+    }
+
+    // The status update may have committed before the call failed, e.g. on a timeout, so only slots
+    // of requests that are verifiably not confirmed are given back; if that is unknown they stay taken.
+    private void releaseUnconfirmed(Long eventId, Set<Long> requestIds, int granted) {
+        try {
+            long confirmedNow = requestClient.getByEventIdAndIds(eventId, requestIds).stream()
+                    .filter(r -> RequestStatus.CONFIRMED.equals(r.getStatus()))
+                    .count();
+            int unused = granted - (int) confirmedNow;
+            if (unused > 0) {
+                decrementConfirmedRequests(eventId, unused);
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not verify confirmed requests of event {}, {} reserved slots stay taken",
+                    eventId, granted, e);
+        }
+    }
+
+    @Override
+    public ConfirmedRequestsDto reserveConfirmedRequests(Long eventId, int count) {
+        EventRepository.ConfirmedReservation reservation = eventRepository.reserveConfirmedRequests(eventId, Math.max(count, 0))
+                .orElseThrow(() -> new EventNotFoundException(eventId));
+        if (reservation.getGranted() > 0) {
+            eventReadCache.invalidate(eventId);
+        }
+        return new ConfirmedRequestsDto(reservation.getGranted(), reservation.getConfirmed());
+    }
+
     @Override
     public EventFullDto updatePrivate(Long userId, Long eventId, EventUpdateUserDto eventDto) {
         UserRequestDto user = getUserOrThrow(userId);;
@@ -326,6 +376,7 @@ public class EventServiceImpl implements EventService {
 
         Event updEvent = mapper.toEventFromUpdateUser(eventDto, category.get(), event.get());
         updEvent = eventRepository.save(updEvent);
+        eventReadCache.invalidate(eventId);
         return mapper.toEventFullDto(updEvent, user);
     }
 
@@ -369,7 +420,6 @@ public class EventServiceImpl implements EventService {
     }
 
     @Override
-    @Transactional
     public EventResultRequestStatusDto updateRequestStatusPrivate(Long userId, Long eventId, EventUpdateRequestStatusDto updateDto) {
         getUserOrThrow(userId);
 
@@ -410,38 +460,56 @@ public class EventServiceImpl implements EventService {
             if (!RequestStatus.PENDING.equals(r.getStatus())) {
                 throw new ConflictException("Request must have status PENDING");
             }
+        }
 
-            if (RequestStatus.REJECTED.equals(updateDto.getStatus())) {
-                r.setStatus(RequestStatus.REJECTED);
-                requestClient.updateInternal(r);
-                rejectedDtos.add(RequestMapper.toEventRequestDto(r));
-                continue;
+        // slots are taken atomically up front, requests beyond the granted ones are rejected
+        int granted = 0;
+        boolean limitReached = false;
+        if (RequestStatus.CONFIRMED.equals(updateDto.getStatus())) {
+            ConfirmedRequestsDto reservation = reserveConfirmedRequests(eventId, requests.size());
+            granted = reservation.getGranted();
+            limitReached = reservation.getConfirmed() >= limit;
+            if (granted == 0 && !requests.isEmpty()) {
+                throw new ConflictException("The participant limit has been reached");
             }
+        }
 
-            if (confirmed < limit) {
-                r.setStatus(RequestStatus.CONFIRMED);
-                requestClient.updateInternal(r);
-                confirmedDtos.add(RequestMapper.toEventRequestDto(r));
-                confirmed++;
+        Set<Long> toConfirm = new HashSet<>();
+        Set<Long> toReject = new HashSet<>();
+        for (Request r : requests) {
+            if (toConfirm.size() < granted) {
+                toConfirm.add(r.getId());
             } else {
-                r.setStatus(RequestStatus.REJECTED);
-                requestClient.updateInternal(r);
-                rejectedDtos.add(RequestMapper.toEventRequestDto(r));
+                toReject.add(r.getId());
             }
         }
 
-        event.setConfirmedRequests(confirmed);
-        eventRepository.save(event);
-
-        if (confirmed >= limit) {
-            List<Request> all = requestClient.getByEventId(eventId);
-            for (Request r : all) {
-                if (RequestStatus.PENDING.equals(r.getStatus())) {
-                    r.setStatus(RequestStatus.REJECTED);
-                    requestClient.updateInternal(r);
-                    rejectedDtos.add(RequestMapper.toEventRequestDto(r));
-                }
+        if (!toConfirm.isEmpty()) {
+            List<Request> confirmedRequests;
+            try {
+                confirmedRequests = requestClient.updateStatus(eventId,
+                        new EventUpdateRequestStatusDto(toConfirm, RequestStatus.CONFIRMED));
+            } catch (RuntimeException e) {
+                releaseUnconfirmed(eventId, toConfirm, granted);
+                throw e;
             }
+            // requests that stopped being pending in the meantime give their slots back
+            int unused = granted - confirmedRequests.size();
+            if (unused > 0) {
+                decrementConfirmedRequests(eventId, unused);
+                limitReached = false;
+            }
+            confirmedRequests.forEach(r -> confirmedDtos.add(RequestMapper.toEventRequestDto(r)));
+        }
+
+        if (!toReject.isEmpty()) {
+            requestClient.updateStatus(eventId, new EventUpdateRequestStatusDto(toReject, RequestStatus.REJECTED))
+                    .forEach(r -> rejectedDtos.add(RequestMapper.toEventRequestDto(r)));
+        }
+
+        if (limitReached) {
+            requestClient.rejectPending(eventId)
+                    .forEach(r -> rejectedDtos.add(RequestMapper.toEventRequestDto(r)));
         }
 
         return EventResultRequestStatusDto.builder()
@@ -579,11 +647,11 @@ public class EventServiceImpl implements EventService {
 
 
     private UserRequestDto getUserOrThrow(Long userId) {
-        List<UserRequestDto> users = userClient.getUsersById(List.of(userId));
-        if (users == null || users.isEmpty()) {
+        UserRequestDto user = userResolver.resolve(userId);
+        if (user == null) {
             throw new UserNotFoundException(userId);
         }
-        return users.get(0);
+        return user;
     }
 
 }
\ No newline at end of file
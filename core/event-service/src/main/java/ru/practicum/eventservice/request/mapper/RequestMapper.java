@@ -2,7 +2,7 @@ package ru.practicum.eventservice.request.mapper;
 
 import ru.practicum.eventservice.dto.request.RequestDto;
 import ru.practicum.eventservice.dto.request.RequestEventDto;
-import ru.practicum.eventservice.dto.user.UserRequestDto;
+import ru.practicum.userclient.dto.UserRequestDto;
 import ru.practicum.eventservice.event.model.Event;
 import ru.practicum.eventservice.request.model.Request;
 import ru.practicum.eventservice.request.model.RequestStatus;
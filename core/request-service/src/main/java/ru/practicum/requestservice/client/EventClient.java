@@ -10,7 +10,10 @@ public interface EventClient {
     @GetMapping("/events/{id}/internal")
     EventFullDto getByIdInternal(@PathVariable("id") Long eventId);
 
-    @PutMapping("/events/{id}")
-    EventFullDto updateInternal(@RequestBody EventFullDto eventUpdateDto, @PathVariable("id") Long eventId);
+    @PutMapping("/internal/events/{id}/confirmed-requests/increment")
+    boolean incrementConfirmedRequests(@PathVariable("id") Long eventId);
+
+    @PutMapping("/internal/events/{id}/confirmed-requests/decrement")
+    void decrementConfirmedRequests(@PathVariable("id") Long eventId, @RequestParam("count") int count);
 }
 
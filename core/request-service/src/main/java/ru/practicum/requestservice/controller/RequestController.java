@@ -4,6 +4,7 @@ import lombok.AllArgsConstructor;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.requestservice.dto.RequestStatusUpdateDto;
 import ru.practicum.requestservice.model.Request;
 import ru.practicum.requestservice.service.RequestService;
 
@@ -36,6 +37,27 @@ public class RequestController {
                 .body(requests);
     }
 
+    @PutMapping("/events/{eventId}/status")
+    public ResponseEntity<List<Request>> updateStatus(@PathVariable Long eventId,
+                                                      @RequestBody RequestStatusUpdateDto updateDto) {
+        List<Request> requests = requestService.updateStatus(eventId, updateDto);
+
+        return ResponseEntity
+                .ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(requests);
+    }
+
+    @PutMapping("/events/{eventId}/reject-pending")
+    public ResponseEntity<List<Request>> rejectPending(@PathVariable Long eventId) {
+        List<Request> requests = requestService.rejectPending(eventId);
+
+        return ResponseEntity
+                .ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(requests);
+    }
+
     @PutMapping
     public ResponseEntity<Request> updateInternal(@RequestBody Request request) {
         Request updRequest = requestService.updateInternal(request);
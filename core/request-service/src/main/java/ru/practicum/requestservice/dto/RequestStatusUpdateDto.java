@@ -0,0 +1,18 @@
+package ru.practicum.requestservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.requestservice.model.RequestStatus;
+
+import java.util.Set;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RequestStatusUpdateDto {
+
+    private Set<Long> requestIds;
+
+    private RequestStatus status;
+}
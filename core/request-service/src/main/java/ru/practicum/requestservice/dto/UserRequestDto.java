@@ -1,14 +0,0 @@
-package ru.practicum.requestservice.dto;
-
-import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
-
-@Data
-@AllArgsConstructor
-@NoArgsConstructor
-public class UserRequestDto {
-    private Long id;
-    private String name;
-    private String email;
-}
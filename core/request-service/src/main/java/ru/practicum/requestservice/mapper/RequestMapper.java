@@ -2,7 +2,7 @@ package ru.practicum.requestservice.mapper;
 
 import ru.practicum.requestservice.dto.RequestDto;
 import ru.practicum.requestservice.dto.RequestEventDto;
-import ru.practicum.requestservice.dto.UserRequestDto;
+import ru.practicum.userclient.dto.UserRequestDto;
 import ru.practicum.requestservice.model.Event;
 import ru.practicum.requestservice.model.Request;
 import ru.practicum.requestservice.model.RequestStatus;
@@ -1,10 +1,14 @@
 package ru.practicum.requestservice.repo;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.requestservice.model.Request;
 import ru.practicum.requestservice.model.RequestStatus;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -19,4 +23,24 @@ public interface RequestRepository extends JpaRepository<Request, Long> {
     boolean existsByRequesterIdAndEventId(Long requesterId, Long eventId);
 
     int countByEventIdAndStatus(Long eventId, RequestStatus status);
+
+    @Transactional
+    @Query(
+            value = "update requests set status = :status " +
+                    "where event_id = :eventId and id in (:requestIds) and status = 'PENDING' " +
+                    "returning *",
+            nativeQuery = true
+    )
+    List<Request> updatePendingStatus(@Param("eventId") Long eventId,
+                                      @Param("requestIds") Collection<Long> requestIds,
+                                      @Param("status") String status);
+
+    @Transactional
+    @Query(
+            value = "update requests set status = 'REJECTED' " +
+                    "where event_id = :eventId and status = 'PENDING' " +
+                    "returning *",
+            nativeQuery = true
+    )
+    List<Request> rejectPending(@Param("eventId") Long eventId);
 }
@@ -1,6 +1,7 @@
 package ru.practicum.requestservice.service;
 
 import ru.practicum.requestservice.dto.RequestDto;
+import ru.practicum.requestservice.dto.RequestStatusUpdateDto;
 import ru.practicum.requestservice.model.Request;
 
 import java.util.List;
@@ -18,4 +19,8 @@ public interface RequestService {
     List<Request> getByEventId(Long eventId);
 
     List<Request> getByEventIdAndIds(Long eventId, Set<Long> requestIds);
+
+    List<Request> updateStatus(Long eventId, RequestStatusUpdateDto updateDto);
+
+    List<Request> rejectPending(Long eventId);
 }
@@ -1,13 +1,16 @@
 package ru.practicum.requestservice.service;
 
 import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 import ru.practicum.requestservice.client.EventClient;
-import ru.practicum.requestservice.client.UserClient;
+import ru.practicum.userclient.UserResolver;
 import ru.practicum.requestservice.dto.EventFullDto;
-import ru.practicum.requestservice.dto.UserRequestDto;
+import ru.practicum.userclient.dto.UserRequestDto;
 import ru.practicum.requestservice.exception.*;
 import ru.practicum.requestservice.dto.RequestDto;
+import ru.practicum.requestservice.dto.RequestStatusUpdateDto;
 import ru.practicum.requestservice.mapper.RequestMapper;
 import ru.practicum.requestservice.model.EventState;
 import ru.practicum.requestservice.model.Request;
@@ -19,12 +22,13 @@ import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @AllArgsConstructor
 public class RequestServiceImpl implements RequestService {
 
     private final RequestRepository requestRepository;
-    private final UserClient userClient;
+    private final UserResolver userResolver;
     private final EventClient eventClient;
 
     @Override
@@ -65,22 +69,43 @@ public class RequestServiceImpl implements RequestService {
                 ? RequestStatus.CONFIRMED
                 : RequestStatus.PENDING;
 
+        // the spot is taken by a conditional update in event-service, so concurrent registrations cannot overbook
+        if (RequestStatus.CONFIRMED.equals(status) && !eventClient.incrementConfirmedRequests(eventId)) {
+            throw new ConflictException("All spots are taken, registration is not possible.");
+        }
+
         Request request = new Request();
         request.setRequesterId(userId);
         request.setEventId(eventId);
         request.setCreated(LocalDateTime.now());
         request.setStatus(status);
 
-        Request saved = requestRepository.save(request);
-
-        if (RequestStatus.CONFIRMED.equals(status)) {
-            event.setConfirmedRequests(confirmed + 1);
-            eventClient.updateInternal(event, eventId);
+        Request saved;
+        try {
+            saved = requestRepository.save(request);
+        } catch (RuntimeException e) {
+            if (RequestStatus.CONFIRMED.equals(status)) {
+                releaseIfNotSaved(userId, eventId, e);
+            }
+            throw e;
         }
 
         return RequestMapper.toDto(saved);
     }
 
+    // A rejected insert certainly did not save the request. Any other error may have come after the
+    // commit, so the spot is given back only if the request is verifiably absent.
+    private void releaseIfNotSaved(Long userId, Long eventId, RuntimeException failure) {
+        try {
+            if (failure instanceof DataIntegrityViolationException
+                    || !requestRepository.existsByRequesterIdAndEventId(userId, eventId)) {
+                eventClient.decrementConfirmedRequests(eventId, 1);
+            }
+        } catch (RuntimeException e) {
+            log.error("Could not release the confirmed spot of event {} for user {}", eventId, userId, e);
+        }
+    }
+
 
     @Override
     public List<RequestDto> get(Long userId) {
@@ -132,11 +157,29 @@ public class RequestServiceImpl implements RequestService {
 
     }
 
+    @Override
+    public List<Request> updateStatus(Long eventId, RequestStatusUpdateDto updateDto) {
+        if (updateDto.getRequestIds() == null || updateDto.getRequestIds().isEmpty()) {
+            return List.of();
+        }
+        if (!RequestStatus.CONFIRMED.equals(updateDto.getStatus())
+                && !RequestStatus.REJECTED.equals(updateDto.getStatus())) {
+            throw new ConflictException("Requests can only be confirmed or rejected.");
+        }
+
+        return requestRepository.updatePendingStatus(eventId, updateDto.getRequestIds(), updateDto.getStatus().name());
+    }
+
+    @Override
+    public List<Request> rejectPending(Long eventId) {
+        return requestRepository.rejectPending(eventId);
+    }
+
     private UserRequestDto getUserOrThrow(Long userId) {
-        List<UserRequestDto> users = userClient.getUsersById(List.of(userId));
-        if (users == null || users.isEmpty()) {
+        UserRequestDto user = userResolver.resolve(userId);
+        if (user == null) {
             throw new UserNotFoundException(userId);
         }
-        return users.get(0);
+        return user;
     }
 }
\ No newline at end of file
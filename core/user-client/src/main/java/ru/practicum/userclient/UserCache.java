@@ -0,0 +1,102 @@
+package ru.practicum.userclient;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import ru.practicum.userclient.dto.UserRequestDto;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU near-cache of found users with expiry after load. Deletes are pushed by user-service.
+ * Every eviction bumps a version; users loaded before an eviction are not cached.
+ */
+@Component
+public class UserCache {
+    private final long ttlNanos;
+    private final Map<Long, CachedUser> users;
+    private final AtomicLong version = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public UserCache(UserCacheConfig config, MeterRegistry registry) {
+        this.ttlNanos = config.getTtl().toNanos();
+        int maxSize = config.getMaxSize();
+        this.users = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedUser> eldest) {
+                if (size() > maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.hits = Counter.builder("user.cache.requests").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("user.cache.requests").tag("result", "miss").register(registry);
+        this.evictions = Counter.builder("user.cache.evictions").register(registry);
+        Gauge.builder("user.cache.size", this, UserCache::size).register(registry);
+        Gauge.builder("user.cache.hit.ratio", this, UserCache::hitRatio).register(registry);
+    }
+
+    public Map<Long, UserRequestDto> getAll(Collection<Long> userIds) {
+        long now = System.nanoTime();
+        Map<Long, UserRequestDto> result = new HashMap<>();
+        synchronized (users) {
+            for (Long userId : userIds) {
+                CachedUser cached = users.get(userId);
+                if (cached != null && now - cached.loadedAt() < ttlNanos) {
+                    result.put(userId, cached.user());
+                }
+            }
+        }
+        hits.increment(result.size());
+        misses.increment(userIds.size() - result.size());
+        return result;
+    }
+
+    public long version() {
+        return version.get();
+    }
+
+    public void putAll(Collection<UserRequestDto> loaded, long loadVersion) {
+        long now = System.nanoTime();
+        synchronized (users) {
+            if (version.get() != loadVersion) {
+                return;
+            }
+            for (UserRequestDto user : loaded) {
+                users.put(user.getId(), new CachedUser(user, now));
+            }
+        }
+    }
+
+    public void evict(long userId) {
+        synchronized (users) {
+            version.incrementAndGet();
+            users.remove(userId);
+        }
+    }
+
+    public int size() {
+        synchronized (users) {
+            return users.size();
+        }
+    }
+
+    private double hitRatio() {
+        double total = hits.count() + misses.count();
+        return total == 0 ? 0.0 : hits.count() / total;
+    }
+
+    private record CachedUser(UserRequestDto user, long loadedAt) {
+    }
+}
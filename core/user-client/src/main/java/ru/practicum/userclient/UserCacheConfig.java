@@ -0,0 +1,15 @@
+package ru.practicum.userclient;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@ConfigurationProperties("user-cache")
+public class UserCacheConfig {
+    private int maxSize = 10_000;
+    private Duration ttl = Duration.ofMinutes(5);
+}
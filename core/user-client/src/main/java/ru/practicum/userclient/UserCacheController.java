@@ -0,0 +1,24 @@
+package ru.practicum.userclient;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+@Slf4j
+@RestController
+@RequiredArgsConstructor
+@RequestMapping(path = "/internal/user-cache")
+public class UserCacheController {
+    private final UserCache userCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @DeleteMapping("/{userId}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void evict(@PathVariable Long userId) {
+        log.debug("--> DELETE /internal/user-cache/{}", userId);
+        userCache.evict(userId);
+        eventPublisher.publishEvent(new UserDeletedEvent(userId));
+    }
+}
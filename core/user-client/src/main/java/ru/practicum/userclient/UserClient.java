@@ -1,9 +1,9 @@
-package ru.practicum.requestservice.client;
+package ru.practicum.userclient;
 
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestParam;
-import ru.practicum.requestservice.dto.UserRequestDto;
+import ru.practicum.userclient.dto.UserRequestDto;
 
 import java.util.List;
 
@@ -11,5 +11,7 @@ import java.util.List;
 public interface UserClient {
 
     @GetMapping()
-    List<UserRequestDto> getUsersById(@RequestParam List<Long> ids);
+    List<UserRequestDto> getUsersById(@RequestParam List<Long> ids,
+                                      @RequestParam int from,
+                                      @RequestParam int size);
 }
@@ -0,0 +1,13 @@
+package ru.practicum.userclient;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Import;
+
+@AutoConfiguration
+@EnableFeignClients(clients = UserClient.class)
+@EnableConfigurationProperties(UserCacheConfig.class)
+@Import({UserCache.class, UserResolver.class, UserCacheController.class})
+public class UserClientAutoConfiguration {
+}
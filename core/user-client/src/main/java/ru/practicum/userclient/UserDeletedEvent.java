@@ -0,0 +1,7 @@
+package ru.practicum.userclient;
+
+/**
+ * Published locally when user-service reports a deleted user, for caches that embed user data.
+ */
+public record UserDeletedEvent(long userId) {
+}
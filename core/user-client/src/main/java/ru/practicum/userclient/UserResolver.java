@@ -0,0 +1,67 @@
+package ru.practicum.userclient;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.annotation.RequestScope;
+import ru.practicum.userclient.dto.UserRequestDto;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Per-request memo of user lookups, backed by {@link UserCache} and one batched user-service call.
+ */
+@Component
+@RequestScope
+@RequiredArgsConstructor
+public class UserResolver {
+    private final UserClient userClient;
+    private final UserCache userCache;
+    private final Map<Long, UserRequestDto> resolved = new HashMap<>();
+
+    public Map<Long, UserRequestDto> resolve(Collection<Long> userIds) {
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Long userId : userIds) {
+            if (userId != null && !resolved.containsKey(userId)) {
+                missing.add(userId);
+            }
+        }
+
+        if (!missing.isEmpty()) {
+            Map<Long, UserRequestDto> cached = userCache.getAll(missing);
+            resolved.putAll(cached);
+            missing.removeAll(cached.keySet());
+        }
+
+        if (!missing.isEmpty()) {
+            List<Long> ids = new ArrayList<>(missing);
+            long loadVersion = userCache.version();
+            List<UserRequestDto> loaded = userClient.getUsersById(ids, 0, ids.size());
+            for (UserRequestDto user : loaded) {
+                resolved.put(user.getId(), user);
+            }
+            userCache.putAll(loaded, loadVersion);
+            for (Long userId : ids) {
+                resolved.putIfAbsent(userId, null);
+            }
+        }
+
+        Map<Long, UserRequestDto> result = new HashMap<>();
+        for (Long userId : userIds) {
+            UserRequestDto user = resolved.get(userId);
+            if (user != null) {
+                result.put(userId, user);
+            }
+        }
+        return result;
+    }
+
+    public UserRequestDto resolve(Long userId) {
+        return resolve(List.of(userId)).get(userId);
+    }
+}
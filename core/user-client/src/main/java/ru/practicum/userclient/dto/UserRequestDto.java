@@ -1,4 +1,4 @@
-package ru.practicum.commentservice.dto;
+package ru.practicum.userclient.dto;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -0,0 +1,18 @@
+package ru.practicum.userservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.List;
+
+@Configuration
+@Getter
+@Setter
+@ConfigurationProperties("user-service.invalidation")
+public class UserInvalidationConfig {
+    private List<String> subscribers = List.of("event-service", "request-service", "comment-service");
+    private Duration timeout = Duration.ofSeconds(2);
+}
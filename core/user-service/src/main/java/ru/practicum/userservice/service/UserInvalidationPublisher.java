@@ -0,0 +1,82 @@
+package ru.practicum.userservice.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import ru.practicum.userservice.config.UserInvalidationConfig;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Tells every registered instance of the services holding a user near-cache that a user is gone.
+ * Delivery is best effort and off the request thread: an instance that misses the call serves the
+ * stale entry until its cache TTL runs out.
+ */
+@Slf4j
+@Component
+public class UserInvalidationPublisher {
+    private final DiscoveryClient discoveryClient;
+    private final List<String> subscribers;
+    private final RestClient restClient;
+    private final ExecutorService executor;
+
+    private final Counter sent;
+    private final Counter failed;
+
+    public UserInvalidationPublisher(DiscoveryClient discoveryClient, UserInvalidationConfig config,
+                                     MeterRegistry registry) {
+        this.discoveryClient = discoveryClient;
+        this.subscribers = List.copyOf(config.getSubscribers());
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(config.getTimeout());
+        requestFactory.setReadTimeout(config.getTimeout());
+        this.restClient = RestClient.builder().requestFactory(requestFactory).build();
+
+        this.executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "user-invalidation");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.sent = Counter.builder("user.invalidation.requests").tag("result", "sent").register(registry);
+        this.failed = Counter.builder("user.invalidation.requests").tag("result", "failed").register(registry);
+    }
+
+    public void userDeleted(long userId) {
+        executor.execute(() -> {
+            for (String subscriber : subscribers) {
+                for (ServiceInstance instance : discoveryClient.getInstances(subscriber)) {
+                    evict(instance, userId);
+                }
+            }
+        });
+    }
+
+    private void evict(ServiceInstance instance, long userId) {
+        try {
+            restClient.delete()
+                    .uri(instance.getUri() + "/internal/user-cache/{userId}", userId)
+                    .retrieve()
+                    .toBodilessEntity();
+            sent.increment();
+        } catch (Exception e) {
+            failed.increment();
+            log.warn("Failed to evict user {} from {} at {}: {}",
+                    userId, instance.getServiceId(), instance.getUri(), e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
@@ -20,6 +20,7 @@ import java.util.stream.Collectors;
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final UserInvalidationPublisher invalidationPublisher;
 
     @Override
     public UserRequestDto create(UserCreateDto userCreateDto) {
@@ -53,5 +54,6 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new UserNotFoundException(userId));
 
         userRepository.deleteById(userId);
+        invalidationPublisher.userDeleted(userId);
     }
 }
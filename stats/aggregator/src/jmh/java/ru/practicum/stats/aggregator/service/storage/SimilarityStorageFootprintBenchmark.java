@@ -0,0 +1,99 @@
+package ru.practicum.stats.aggregator.service.storage;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills each storage backend with the same synthetic ratings and reports what it retains:
+ * heapBytes and directBytes are the live heap and direct memory after a full GC.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+@State(Scope.Benchmark)
+public class SimilarityStorageFootprintBenchmark {
+
+    @Param({"MAP", "PRIMITIVE", "PRIMITIVE_OFF_HEAP"})
+    public String backend;
+
+    @Param("20000")
+    public int users;
+
+    @Param("5000")
+    public int events;
+
+    @Param("12")
+    public int eventsPerUser;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Footprint {
+        public long heapBytes;
+        public long directBytes;
+    }
+
+    @Benchmark
+    public void fill(Footprint footprint) {
+        long heapBefore = usedHeap();
+        long directBefore = usedDirect();
+
+        SimilarityStorage storage = switch (backend) {
+            case "MAP" -> new MapSimilarityStorage();
+            case "PRIMITIVE" -> new PrimitiveSimilarityStorage(false, events);
+            default -> new PrimitiveSimilarityStorage(true, events);
+        };
+        SplittableRandom random = new SplittableRandom(42);
+        long[] rated = new long[eventsPerUser];
+        for (long userId = 1; userId <= users; userId++) {
+            for (int i = 0; i < eventsPerUser; i++) {
+                rated[i] = random.nextLong(1, events + 1);
+                double weight = random.nextInt(1, 4) * 0.4;
+                storage.putWeight(rated[i], userId, weight);
+                storage.addWeightSum(rated[i], weight);
+            }
+            for (int i = 0; i < eventsPerUser; i++) {
+                for (int j = i + 1; j < eventsPerUser; j++) {
+                    if (rated[i] != rated[j]) {
+                        storage.addMinWeightsSum(rated[i], rated[j], 0.4);
+                        storage.putSimilarity(rated[i], rated[j], 0.5);
+                    }
+                }
+            }
+        }
+
+        footprint.heapBytes = usedHeap() - heapBefore;
+        footprint.directBytes = usedDirect() - directBefore;
+        Reference.reachabilityFence(storage);
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long usedDirect() {
+        return ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class).stream()
+                .filter(pool -> "direct".equals(pool.getName()))
+                .mapToLong(BufferPoolMXBean::getMemoryUsed)
+                .sum();
+    }
+}
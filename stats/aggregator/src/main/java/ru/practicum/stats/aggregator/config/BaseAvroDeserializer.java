@@ -15,7 +15,7 @@ public class BaseAvroDeserializer<T extends SpecificRecordBase> implements Deser
     private final DecoderFactory decoderFactory;
     protected final Schema schema;
     private final DatumReader<T> reader;
-    private BinaryDecoder decoder;
+    private final ThreadLocal<BinaryDecoder> decoder = new ThreadLocal<>();
 
     public BaseAvroDeserializer(Schema schema) {
         this(DecoderFactory.get(), schema);
@@ -34,8 +34,9 @@ public class BaseAvroDeserializer<T extends SpecificRecordBase> implements Deser
                 return null;
             }
 
-            decoder = decoderFactory.binaryDecoder(data, decoder);
-            return reader.read(null, decoder);
+            BinaryDecoder current = decoderFactory.binaryDecoder(data, decoder.get());
+            decoder.set(current);
+            return reader.read(null, current);
         } catch (Exception e) {
             throw new SerializationException("Error with data desirialization [" + topic + "]", e);
         }
@@ -0,0 +1,18 @@
+package ru.practicum.stats.aggregator.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@Getter
+@Setter
+@ConfigurationProperties("aggregator.coalescing")
+public class CoalescingConfig {
+    private boolean enabled = false;
+    private Duration window = Duration.ofSeconds(1);
+    private int maxPairs = 10_000;
+}
@@ -7,6 +7,8 @@ public interface ConsumerClient {
 
     Consumer<String, SpecificRecordBase> getConsumer();
 
+    Consumer<String, SpecificRecordBase> newConsumer();
+
     void stop();
 
 }
\ No newline at end of file
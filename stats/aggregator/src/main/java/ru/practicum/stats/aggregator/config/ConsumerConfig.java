@@ -32,8 +32,13 @@ public class ConsumerConfig {
                 return сonsumer;
             }
 
+            @Override
+            public Consumer<String, SpecificRecordBase> newConsumer() {
+                return new KafkaConsumer<>(properties);
+            }
+
             private void initConsumer() {
-                сonsumer = new KafkaConsumer<>(properties);
+                сonsumer = newConsumer();
             }
 
             @Override
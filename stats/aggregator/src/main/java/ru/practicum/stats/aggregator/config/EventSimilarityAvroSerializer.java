@@ -1,34 +1,10 @@
 package ru.practicum.stats.aggregator.config;
 
-import org.apache.avro.io.BinaryEncoder;
-import org.apache.avro.io.DatumWriter;
-import org.apache.avro.io.EncoderFactory;
-import org.apache.avro.specific.SpecificDatumWriter;
 import org.apache.avro.specific.SpecificRecordBase;
-import org.apache.kafka.common.errors.SerializationException;
-import org.apache.kafka.common.serialization.Serializer;
-
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-
-public class EventSimilarityAvroSerializer implements Serializer<SpecificRecordBase> {
-    private final EncoderFactory encoderFactory = EncoderFactory.get();
-    private BinaryEncoder encoder;
-
-    public byte[] serialize(String topic, SpecificRecordBase data) {
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            byte[] result = null;
-            encoder = encoderFactory.binaryEncoder(out, encoder);
-            if (data != null) {
-                DatumWriter<SpecificRecordBase> writer = new SpecificDatumWriter<>(data.getSchema());
-                writer.write(data, encoder);
-                encoder.flush();
-                result = out.toByteArray();
-            }
-            return result;
-        } catch (IOException ex) {
-            throw new SerializationException("Error with data serialization [" + topic + "]", ex);
-        }
-    }
+import ru.practicum.stats.serialization.BaseAvroSerializer;
 
+/**
+ * Writes both similarity formats, single records and batches, so it is not bound to one schema.
+ */
+public class EventSimilarityAvroSerializer extends BaseAvroSerializer<SpecificRecordBase> {
 }
@@ -7,6 +7,10 @@ public interface ProducerClient {
 
     Producer<String, SpecificRecordBase> getProducer();
 
+    Producer<String, SpecificRecordBase> newTransactionalProducer(String transactionalId);
+
+    void flush();
+
     void stop();
 
 }
@@ -36,11 +36,30 @@ public class ProducerConfig {
                 return producer;
             }
 
+            @Override
+            public Producer<String, SpecificRecordBase> newTransactionalProducer(String transactionalId) {
+                Properties transactional = new Properties();
+                transactional.putAll(properties);
+                transactional.put("transactional.id", transactionalId);
+                transactional.put("enable.idempotence", true);
+
+                Producer<String, SpecificRecordBase> transactionalProducer = new KafkaProducer<>(transactional);
+                transactionalProducer.initTransactions();
+                return transactionalProducer;
+            }
+
             private void initProducer() {
 
                 producer = new KafkaProducer<>(properties);
             }
 
+            @Override
+            public void flush() {
+                if (producer != null) {
+                    producer.flush();
+                }
+            }
+
             @Override
             public void stop() {
                 if (producer != null) {
@@ -0,0 +1,16 @@
+package ru.practicum.stats.aggregator.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Getter
+@Setter
+@ConfigurationProperties("aggregator.similarity-format")
+public class SimilarityFormatConfig {
+    private int version = 1;
+    private String batchTopic = "stats.events-similarity.v2";
+    private int maxBatchPairs = 1_000;
+}
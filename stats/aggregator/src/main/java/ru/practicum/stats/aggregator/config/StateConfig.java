@@ -0,0 +1,18 @@
+package ru.practicum.stats.aggregator.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@Getter
+@Setter
+@ConfigurationProperties("aggregator.state")
+public class StateConfig {
+    private boolean enabled = false;
+    private String directory = "aggregator-state";
+    private Duration snapshotInterval = Duration.ofMinutes(1);
+}
@@ -0,0 +1,29 @@
+package ru.practicum.stats.aggregator.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.practicum.stats.aggregator.service.storage.MapSimilarityStorage;
+import ru.practicum.stats.aggregator.service.storage.PrimitiveSimilarityStorage;
+import ru.practicum.stats.aggregator.service.storage.SimilarityStorage;
+import ru.practicum.stats.aggregator.service.storage.StorageType;
+
+@Configuration
+@Getter
+@Setter
+@ConfigurationProperties("aggregator.storage")
+public class StorageConfig {
+    private StorageType type = StorageType.MAP;
+    private boolean offHeap = false;
+    private int expectedEvents = 1024;
+
+    @Bean
+    SimilarityStorage getSimilarityStorage() {
+        return switch (type) {
+            case MAP -> new MapSimilarityStorage();
+            case PRIMITIVE -> new PrimitiveSimilarityStorage(offHeap, expectedEvents);
+        };
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.stats.aggregator.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@Getter
+@Setter
+@ConfigurationProperties("aggregator.transactions")
+public class TransactionConfig {
+    private boolean enabled = false;
+    private String idPrefix = "stats.aggregator";
+    /**
+     * Distinguishes aggregator instances in the transactional id; the host name when empty.
+     */
+    private String instanceId;
+}
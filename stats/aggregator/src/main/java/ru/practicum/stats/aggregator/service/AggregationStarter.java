@@ -4,23 +4,38 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.avro.specific.SpecificRecordBase;
 import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRebalanceListener;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.consumer.ConsumerRecords;
 import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.Producer;
 import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.WakeupException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import ru.practicum.ewm.stats.avro.EventSimilarityAvro;
 import ru.practicum.ewm.stats.avro.UserActionAvro;
+import ru.practicum.stats.aggregator.config.CoalescingConfig;
 import ru.practicum.stats.aggregator.config.ConsumerClient;
 import ru.practicum.stats.aggregator.config.ProducerClient;
+import ru.practicum.stats.aggregator.config.SimilarityFormatConfig;
+import ru.practicum.stats.aggregator.config.TransactionConfig;
+import ru.practicum.stats.aggregator.service.state.AggregatorStateStore;
 
+import java.net.InetAddress;
+import java.net.UnknownHostException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Slf4j
 @Component
@@ -29,6 +44,10 @@ public class AggregationStarter {
     private final ConsumerClient clientConsumer;
     private final ProducerClient clientProducer;
     private final EventSimilarityService service;
+    private final AggregatorStateStore stateStore;
+    private final CoalescingConfig coalescingConfig;
+    private final TransactionConfig transactionConfig;
+    private final SimilarityFormatConfig formatConfig;
 
     @Value("${aggregator.kafka.consumer.topic}")
     private String consumerTopic;
@@ -36,42 +55,34 @@ public class AggregationStarter {
     @Value("${aggregator.kafka.producer.topic}")
     private String producerTopic;
 
-    private static final Map<TopicPartition, OffsetAndMetadata> currentOffsets = new HashMap<>();
+    @Value("${aggregator.kafka.consumer.poll-timeout:100ms}")
+    private Duration pollTimeout;
 
-    public void start() {
-
-        try {
-            clientConsumer.getConsumer().subscribe(List.of(consumerTopic));
+    @Value("${aggregator.workers:1}")
+    private int workers;
 
-            int count = 0;
+    private final List<AggregationWorker> running = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean rebuildNeeded = new AtomicBoolean();
 
-            while (true) {
-                ConsumerRecords<String, SpecificRecordBase> records = clientConsumer.getConsumer().poll(Duration.ofMillis(100));
+    public void start() {
 
-                for (ConsumerRecord<String, SpecificRecordBase> record : records) {
-                    List<EventSimilarityAvro> eventSimilarityAvroList = service.calculate((UserActionAvro) record.value());
-                    if (eventSimilarityAvroList.isEmpty()) {
-                    } else {
-                        for (EventSimilarityAvro eventSimilarityAvro : eventSimilarityAvroList) {
-                            ProducerRecord<String, SpecificRecordBase> calculation = new ProducerRecord<>(producerTopic, eventSimilarityAvro);
-                            clientProducer.getProducer().send(calculation);
-                        }
-                    }
-                    manageOffsets(record, count, clientConsumer.getConsumer());
-                    count++;
-                }
+        try {
+            stateStore.restore(service::restore);
 
-                clientConsumer.getConsumer().commitAsync();
+            // a failed worker leaves actions in the state that its partitions will be read again for,
+            // so every worker stops and the state is rebuilt from committed offsets before they resume
+            while (runWorkers()) {
+                log.warn("Rebuilding aggregator state from committed offsets after a failed batch");
+                stateStore.rebuild(service::restore);
             }
 
-        } catch (WakeupException ignored) {
-
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         } catch (Exception e) {
             log.error("Error with messages ", e);
         } finally {
             try {
-                clientProducer.getProducer().flush();
-                clientConsumer.getConsumer().commitSync(currentOffsets);
+                clientProducer.flush();
             } finally {
                 clientConsumer.stop();
                 clientProducer.stop();
@@ -79,19 +90,285 @@ public class AggregationStarter {
         }
     }
 
-    private static void manageOffsets(ConsumerRecord<String, SpecificRecordBase> record, int count, Consumer<String, SpecificRecordBase> consumer) {
-        currentOffsets.put(
-                new TopicPartition(record.topic(), record.partition()),
-                new OffsetAndMetadata(record.offset() + 1)
-        );
+    private boolean runWorkers() throws InterruptedException {
+        if (workers <= 1) {
+            AggregationWorker worker = new AggregationWorker(0, clientConsumer.getConsumer(), false);
+            running.add(worker);
+            worker.run();
+        } else {
+            List<Thread> threads = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) {
+                AggregationWorker worker = new AggregationWorker(i, clientConsumer.newConsumer(), true);
+                running.add(worker);
+                Thread thread = new Thread(worker, "AggregationWorker-" + i);
+                thread.setDaemon(false);
+                thread.start();
+                threads.add(thread);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+        }
+        return rebuildNeeded.getAndSet(false);
+    }
+
+    private void stopAllFor(AggregationWorker failed) {
+        stateStore.invalidate();
+        rebuildNeeded.set(true);
+        for (AggregationWorker worker : running) {
+            if (worker != failed) {
+                worker.consumer.wakeup();
+            }
+        }
+    }
+
+    // ids must differ across instances, or a second instance fences the first one's producers
+    private String transactionalId(int index) {
+        String instanceId = transactionConfig.getInstanceId();
+        if (instanceId == null || instanceId.isBlank()) {
+            try {
+                instanceId = InetAddress.getLocalHost().getHostName();
+            } catch (UnknownHostException e) {
+                instanceId = UUID.randomUUID().toString();
+                log.warn("Host name is unavailable, transactional id uses {}", instanceId, e);
+            }
+        }
+        return transactionConfig.getIdPrefix() + "-" + instanceId + "-" + index;
+    }
+
+    private static Duration min(Duration a, Duration b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+
+    private class AggregationWorker implements Runnable, ConsumerRebalanceListener {
+        private final Consumer<String, SpecificRecordBase> consumer;
+        private final boolean ownsConsumer;
+        private final Producer<String, SpecificRecordBase> producer;
+        private final boolean transactional;
+        private final Map<TopicPartition, OffsetAndMetadata> currentOffsets = new HashMap<>();
+        private final SimilarityCoalescer coalescer;
+        private final String key;
+        private final List<EventSimilarityAvro> batch;
+        private final AtomicReference<Exception> sendFailure = new AtomicReference<>();
+        private boolean uncommitted;
+        private boolean inTransaction;
+        private boolean failed;
+
+        AggregationWorker(int index, Consumer<String, SpecificRecordBase> consumer, boolean ownsConsumer) {
+            this.consumer = consumer;
+            this.ownsConsumer = ownsConsumer;
+            this.transactional = transactionConfig.isEnabled();
+            this.producer = transactional
+                    ? clientProducer.newTransactionalProducer(transactionalId(index))
+                    : clientProducer.getProducer();
+            this.coalescer = coalescingConfig.isEnabled()
+                    ? new SimilarityCoalescer(coalescingConfig.getWindow(), coalescingConfig.getMaxPairs())
+                    : null;
+            this.key = "aggregator-worker-" + index;
+            this.batch = formatConfig.getVersion() >= 2 ? new ArrayList<>(formatConfig.getMaxBatchPairs()) : null;
+        }
+
+        @Override
+        public void run() {
+            stateStore.register();
+            try {
+                consumer.subscribe(List.of(consumerTopic), this);
+
+                while (true) {
+                    // an idle topic must not hold coalesced pairs past their window
+                    Duration timeout = coalescer == null ? pollTimeout : min(pollTimeout, coalescer.untilDue());
+                    ConsumerRecords<String, SpecificRecordBase> records = consumer.poll(timeout);
+
+                    for (ConsumerRecord<String, SpecificRecordBase> record : records) {
+                        UserActionAvro userAction = (UserActionAvro) record.value();
+                        List<EventSimilarityAvro> eventSimilarityAvroList = service.calculate(userAction);
+                        stateStore.append(userAction, new TopicPartition(record.topic(), record.partition()), record.offset());
+                        for (EventSimilarityAvro eventSimilarityAvro : eventSimilarityAvroList) {
+                            if (coalescer != null) {
+                                coalescer.add(eventSimilarityAvro);
+                            } else {
+                                send(SimilarityCoalescer.keyOf(eventSimilarityAvro), eventSimilarityAvro);
+                            }
+                        }
+                        manageOffsets(record);
+                    }
+
+                    if (coalescer == null || coalescer.isDue()) {
+                        commit();
+                    }
+                    if (!uncommitted) {
+                        stateStore.checkpoint();
+                    }
+                }
+
+            } catch (WakeupException ignored) {
+
+            } catch (Exception e) {
+                log.error("Error with messages ", e);
+                failed = true;
+                abortTransaction();
+                stopAllFor(this);
+            } finally {
+                try {
+                    if (!failed) {
+                        if (transactional) {
+                            commit();
+                        } else {
+                            flushPending();
+                            commitSent(true);
+                        }
+                    }
+                } finally {
+                    running.remove(this);
+                    stateStore.deregister();
+                    if (transactional) {
+                        producer.close();
+                    }
+                    if (ownsConsumer) {
+                        consumer.close();
+                    } else if (failed) {
+                        // the shared consumer rejoins with the next worker and seeks to committed offsets again
+                        consumer.unsubscribe();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public void onPartitionsRevoked(Collection<TopicPartition> partitions) {
+            // leaving after a failure must not commit offsets of the batch that failed
+            if (failed) {
+                return;
+            }
+            if (transactional) {
+                commit();
+            } else {
+                flushPending();
+                commitSent(true);
+            }
+        }
 
-        if (count % 10 == 0) {
-            consumer.commitAsync(currentOffsets, (offsets, exception) -> {
+        @Override
+        public void onPartitionsAssigned(Collection<TopicPartition> partitions) {
+            if (!stateStore.isEnabled()) {
+                return;
+            }
+            for (TopicPartition partition : partitions) {
+                Long offset = stateStore.getCommittedOffsets().get(partition);
+                if (offset != null) {
+                    consumer.seek(partition, offset);
+                } else {
+                    consumer.seekToBeginning(List.of(partition));
+                }
+            }
+        }
+
+        private void send(String key, EventSimilarityAvro eventSimilarityAvro) {
+            if (batch != null) {
+                batch.add(eventSimilarityAvro);
+                if (batch.size() >= formatConfig.getMaxBatchPairs()) {
+                    sendBatch();
+                }
+                return;
+            }
+            send(producerTopic, key, eventSimilarityAvro, SimilarityBatchEncoder.VERSION_1);
+        }
+
+        // batches of one worker share a key, so they stay ordered within a partition
+        private void sendBatch() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            send(formatConfig.getBatchTopic(), key, SimilarityBatchEncoder.encode(batch), SimilarityBatchEncoder.VERSION_2);
+            batch.clear();
+        }
+
+        private void send(String topic, String recordKey, SpecificRecordBase value, byte[] version) {
+            if (transactional && !inTransaction) {
+                producer.beginTransaction();
+                inTransaction = true;
+            }
+            ProducerRecord<String, SpecificRecordBase> calculation = new ProducerRecord<>(topic, recordKey, value);
+            calculation.headers().add(SimilarityBatchEncoder.SCHEMA_VERSION_HEADER, version);
+            producer.send(calculation, transactional ? null : (metadata, exception) -> {
                 if (exception != null) {
-                    log.warn("Error with offsets ficsation: ", offsets, exception);
+                    sendFailure.compareAndSet(null, exception);
                 }
             });
         }
+
+        private void flushPending() {
+            if (coalescer != null) {
+                coalescer.flush(this::send);
+            }
+            if (batch != null) {
+                sendBatch();
+            }
+        }
+
+        private void commit() {
+            flushPending();
+            if (transactional) {
+                commitTransaction();
+            } else {
+                commitSent(false);
+            }
+            if (uncommitted) {
+                stateStore.commit(currentOffsets);
+                uncommitted = false;
+            }
+        }
+
+        // at-least-once: offsets are committed only after everything produced before them is acknowledged
+        private void commitSent(boolean sync) {
+            producer.flush();
+            Exception failure = sendFailure.getAndSet(null);
+            if (failure != null) {
+                throw new KafkaException("Similarity send failed, offsets are left uncommitted", failure);
+            }
+            if (sync) {
+                consumer.commitSync(currentOffsets);
+            } else {
+                consumer.commitAsync(new HashMap<>(currentOffsets), (offsets, exception) -> {
+                    if (exception != null) {
+                        log.warn("Error with offsets fixation: {}", offsets, exception);
+                    }
+                });
+            }
+        }
+
+        private void commitTransaction() {
+            if (!uncommitted) {
+                return;
+            }
+            if (!inTransaction) {
+                producer.beginTransaction();
+                inTransaction = true;
+            }
+            producer.sendOffsetsToTransaction(new HashMap<>(currentOffsets), consumer.groupMetadata());
+            producer.commitTransaction();
+            inTransaction = false;
+        }
+
+        private void abortTransaction() {
+            if (!inTransaction) {
+                return;
+            }
+            try {
+                producer.abortTransaction();
+            } catch (Exception e) {
+                log.warn("Error with transaction abort", e);
+            }
+            inTransaction = false;
+        }
+
+        private void manageOffsets(ConsumerRecord<String, SpecificRecordBase> record) {
+            currentOffsets.put(
+                    new TopicPartition(record.topic(), record.partition()),
+                    new OffsetAndMetadata(record.offset() + 1)
+            );
+            uncommitted = true;
+        }
     }
 
 }
\ No newline at end of file
@@ -5,16 +5,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 import ru.practicum.ewm.stats.avro.EventSimilarityAvro;
 import ru.practicum.ewm.stats.avro.UserActionAvro;
+import ru.practicum.stats.aggregator.service.storage.SimilarityStorage;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.Instant;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
 @Slf4j
 @Component
@@ -23,136 +20,99 @@ public class EventSimilarityService {
 
     private static final int SCORE_SCALE = 2;
     private static final RoundingMode SCORE_ROUNDING = RoundingMode.HALF_UP;
+    private static final int PAIR_STRIPES = 1024;
 
-    private final ConcurrentMap<Long, ConcurrentMap<Long, Double>> weightMatrix = new ConcurrentHashMap<>();
-    private final ConcurrentMap<Long, Double> normByEvent = new ConcurrentHashMap<>();
-    private final ConcurrentMap<Long, ConcurrentMap<Long, Double>> similarityMatrix = new ConcurrentHashMap<>();
+    private final SimilarityStorage storage;
+    private final PairClock[] pairClocks = newPairClocks();
 
     public List<EventSimilarityAvro> calculate(UserActionAvro userAction) {
-        if (userAction == null) return Collections.emptyList();
+        List<EventSimilarityAvro> result = new ArrayList<>();
+        apply(userAction, result);
+        return result;
+    }
+
+    public void restore(UserActionAvro userAction) {
+        apply(userAction, null);
+    }
+
+    public void put(long eventA, long eventB, double similarity) {
+        storage.putSimilarity(eventA, eventB, similarity);
+    }
+
+    public double get(long eventA, long eventB) {
+        return storage.getSimilarity(eventA, eventB);
+    }
+
+    private void apply(UserActionAvro userAction, List<EventSimilarityAvro> result) {
+        if (userAction == null) return;
 
         Long eventId = userAction.getEventId();
         Long userId = userAction.getUserId();
         if (eventId == null || userId == null) {
             log.debug("Skip userAction with null ids: {}", userAction);
-            return Collections.emptyList();
+            return;
         }
 
         double rating = ratingOf(userAction);
-        ConcurrentMap<Long, Double> usersWeights =
-                weightMatrix.computeIfAbsent(eventId, id -> new ConcurrentHashMap<>());
-
-        boolean updated = upsertMax(usersWeights, userId, rating);
-        if (!updated) {
-            return Collections.emptyList();
+        double current = storage.getWeight(eventId, userId, Double.NaN);
+        if (rating <= current) {
+            return;
         }
+        double oldWeight = Double.isNaN(current) ? 0.0 : current;
 
-        normByEvent.put(eventId, norm(usersWeights));
+        storage.putWeight(eventId, userId, rating);
+        storage.addWeightSum(eventId, rating - oldWeight);
 
-        List<EventSimilarityAvro> result = calculateSimilarityForEvent(eventId, userId);
+        calculateSimilarityForEvent(eventId, userId, oldWeight, rating, result);
 
         log.debug("Updated weights for eventId={}, userId={}, rating={}, produced {} similarity msgs",
-                eventId, userId, rating, result.size());
-
-        return result;
+                eventId, userId, rating, result == null ? 0 : result.size());
     }
 
-    public void put(long eventA, long eventB, double similarity) {
-        long first = Math.min(eventA, eventB);
-        long second = Math.max(eventA, eventB);
-
-        similarityMatrix
-                .computeIfAbsent(first, e -> new ConcurrentHashMap<>())
-                .put(second, similarity);
-    }
-
-    public double get(long eventA, long eventB) {
-        long first = Math.min(eventA, eventB);
-        long second = Math.max(eventA, eventB);
-
-        return similarityMatrix
-                .computeIfAbsent(first, e -> new ConcurrentHashMap<>())
-                .getOrDefault(second, 0.0);
-    }
-
-    private boolean upsertMax(ConcurrentMap<Long, Double> usersWeights, Long userId, double rating) {
-        Double current = usersWeights.get(userId);
-        if (current == null || rating > current) {
-            usersWeights.put(userId, rating);
-            return true;
-        }
-        return false;
-    }
-
-    private List<EventSimilarityAvro> calculateSimilarityForEvent(Long eventId, Long baseUserId) {
-        Map<Long, Double> a = weightMatrix.get(eventId);
-        if (a == null || a.isEmpty()) return Collections.emptyList();
-
-        double normA = normByEvent.computeIfAbsent(eventId, id -> norm(a));
-        if (normA <= 0.0) return Collections.emptyList();
-
-        List<EventSimilarityAvro> result = new ArrayList<>();
+    private void calculateSimilarityForEvent(long eventId, long baseUserId, double oldWeight, double newWeight,
+                                             List<EventSimilarityAvro> result) {
+        if (storage.getWeightSum(eventId) <= 0.0) return;
 
-        for (Map.Entry<Long, ConcurrentMap<Long, Double>> entry : weightMatrix.entrySet()) {
-            Long otherEventId = entry.getKey();
-            if (otherEventId.equals(eventId)) continue;
+        storage.forEachUserWeight(baseUserId, (otherEventId, otherWeight) -> {
+            if (otherEventId == eventId) return;
 
-            Map<Long, Double> b = entry.getValue();
-            if (b == null || b.isEmpty()) continue;
-
-            if (!b.containsKey(baseUserId)) continue;
+            double delta = Math.min(newWeight, otherWeight) - Math.min(oldWeight, otherWeight);
+            long first = Math.min(eventId, otherEventId);
+            long second = Math.max(eventId, otherEventId);
 
-            double sumMin = overlapMinSum(a, b);
-            if (sumMin <= 0.0) continue;
+            // Workers share pairs: the sum, the score and its version are taken together, so a
+            // later version of a pair always carries the score of the later state.
+            double similarity;
+            long version;
+            PairClock clock = pairClocks[stripeOf(first, second)];
+            synchronized (clock) {
+                double sumMin = storage.addMinWeightsSum(first, second, delta);
+                if (sumMin <= 0.0) return;
 
-            double normB = normByEvent.computeIfAbsent(otherEventId, id -> norm(b));
-            if (normB <= 0.0) continue;
+                double norms = Math.sqrt(storage.getWeightSum(first)) * Math.sqrt(storage.getWeightSum(second));
+                if (norms <= 0.0) return;
 
-            double similarity = sumMin / (normA * normB);
-            if (similarity <= 0.0) continue;
+                similarity = sumMin / norms;
+                if (similarity <= 0.0) return;
 
-            put(eventId, otherEventId, similarity);
+                put(first, second, similarity);
+                version = clock.next();
+            }
+            if (result == null) return;
 
             double rounded = BigDecimal.valueOf(similarity)
                     .setScale(SCORE_SCALE, SCORE_ROUNDING)
                     .doubleValue();
 
-            long first = Math.min(eventId, otherEventId);
-            long second = Math.max(eventId, otherEventId);
-
             EventSimilarityAvro msg = EventSimilarityAvro.newBuilder()
-                    .setEventA((int) first)
-                    .setEventB((int) second)
+                    .setEventA(first)
+                    .setEventB(second)
                     .setScore(rounded)
-                    .setTimestamp(Instant.now())
+                    .setTimestamp(Instant.ofEpochMilli(version))
                     .build();
 
             result.add(msg);
-        }
-
-        return result;
-    }
-
-    private double overlapMinSum(Map<Long, Double> a, Map<Long, Double> b) {
-        Map<Long, Double> small = a.size() <= b.size() ? a : b;
-        Map<Long, Double> large = small == a ? b : a;
-
-        double sum = 0.0;
-        for (Map.Entry<Long, Double> e : small.entrySet()) {
-            Double other = large.get(e.getKey());
-            if (other != null) {
-                sum += Math.min(e.getValue(), other);
-            }
-        }
-        return sum;
-    }
-
-    private double norm(Map<Long, Double> weights) {
-        double sum = 0.0;
-        for (double w : weights.values()) {
-            sum += w;
-        }
-        return Math.sqrt(sum);
+        });
     }
 
     private double ratingOf(UserActionAvro userAction) {
@@ -164,5 +124,28 @@ public class EventSimilarityService {
             default -> 0.0;
         };
     }
-}
 
+    private static int stripeOf(long first, long second) {
+        return (int) (((first * 31 + second) * 0x9E3779B97F4A7C15L) >>> 54) & (PAIR_STRIPES - 1);
+    }
+
+    private static PairClock[] newPairClocks() {
+        PairClock[] clocks = new PairClock[PAIR_STRIPES];
+        for (int i = 0; i < PAIR_STRIPES; i++) {
+            clocks[i] = new PairClock();
+        }
+        return clocks;
+    }
+
+    /**
+     * Wall-clock millis made strictly increasing per stripe; the emitted timestamp is the pair's version.
+     */
+    private static final class PairClock {
+        private long last;
+
+        long next() {
+            last = Math.max(System.currentTimeMillis(), last + 1);
+            return last;
+        }
+    }
+}
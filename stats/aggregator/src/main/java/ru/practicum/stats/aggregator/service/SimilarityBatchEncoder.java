@@ -0,0 +1,57 @@
+package ru.practicum.stats.aggregator.service;
+
+import ru.practicum.ewm.stats.avro.EventSimilarityAvro;
+import ru.practicum.ewm.stats.avro.EventSimilarityBatchAvro;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Packs similarity updates into the version 2 batch message, see {@link EventSimilarityBatchAvro}.
+ */
+public final class SimilarityBatchEncoder {
+    public static final String SCHEMA_VERSION_HEADER = "schema-version";
+    public static final byte[] VERSION_1 = {1};
+    public static final byte[] VERSION_2 = {2};
+
+    private static final Comparator<EventSimilarityAvro> PAIR_ORDER = Comparator
+            .comparingLong(EventSimilarityAvro::getEventA)
+            .thenComparingLong(EventSimilarityAvro::getEventB);
+
+    private SimilarityBatchEncoder() {
+    }
+
+    public static EventSimilarityBatchAvro encode(List<EventSimilarityAvro> similarities) {
+        List<EventSimilarityAvro> sorted = new ArrayList<>(similarities);
+        sorted.sort(PAIR_ORDER);
+
+        List<Long> eventA = new ArrayList<>(sorted.size());
+        List<Long> eventB = new ArrayList<>(sorted.size());
+        List<Float> score = new ArrayList<>(sorted.size());
+        Instant latest = Instant.EPOCH;
+        long previousA = 0;
+        for (EventSimilarityAvro similarity : sorted) {
+            eventA.add(similarity.getEventA() - previousA);
+            eventB.add(similarity.getEventB() - similarity.getEventA());
+            score.add((float) similarity.getScore());
+            previousA = similarity.getEventA();
+            if (similarity.getTimestamp().isAfter(latest)) {
+                latest = similarity.getTimestamp();
+            }
+        }
+        List<Long> age = new ArrayList<>(sorted.size());
+        for (EventSimilarityAvro similarity : sorted) {
+            age.add(latest.toEpochMilli() - similarity.getTimestamp().toEpochMilli());
+        }
+
+        return EventSimilarityBatchAvro.newBuilder()
+                .setEventA(eventA)
+                .setEventB(eventB)
+                .setScore(score)
+                .setTimestamp(latest)
+                .setAge(age)
+                .build();
+    }
+}
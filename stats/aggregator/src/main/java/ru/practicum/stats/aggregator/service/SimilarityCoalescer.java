@@ -0,0 +1,45 @@
+package ru.practicum.stats.aggregator.service;
+
+import ru.practicum.ewm.stats.avro.EventSimilarityAvro;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+public class SimilarityCoalescer {
+    private final Duration window;
+    private final int maxPairs;
+    private final Map<String, EventSimilarityAvro> pending = new HashMap<>();
+    private Instant windowStart = Instant.now();
+
+    public SimilarityCoalescer(Duration window, int maxPairs) {
+        this.window = window;
+        this.maxPairs = maxPairs;
+    }
+
+    public static String keyOf(EventSimilarityAvro similarity) {
+        return similarity.getEventA() + "-" + similarity.getEventB();
+    }
+
+    public void add(EventSimilarityAvro similarity) {
+        pending.merge(keyOf(similarity), similarity,
+                (held, next) -> next.getTimestamp().isBefore(held.getTimestamp()) ? held : next);
+    }
+
+    public boolean isDue() {
+        return pending.size() >= maxPairs || !Instant.now().isBefore(windowStart.plus(window));
+    }
+
+    public Duration untilDue() {
+        Duration remaining = Duration.between(Instant.now(), windowStart.plus(window));
+        return remaining.isNegative() ? Duration.ZERO : remaining;
+    }
+
+    public void flush(BiConsumer<String, EventSimilarityAvro> sink) {
+        pending.forEach(sink);
+        pending.clear();
+        windowStart = Instant.now();
+    }
+}
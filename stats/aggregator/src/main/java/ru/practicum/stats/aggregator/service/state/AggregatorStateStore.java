@@ -0,0 +1,392 @@
+package ru.practicum.stats.aggregator.service.state;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.stereotype.Component;
+import ru.practicum.ewm.stats.avro.ActionTypeAvro;
+import ru.practicum.ewm.stats.avro.UserActionAvro;
+import ru.practicum.stats.aggregator.config.StateConfig;
+import ru.practicum.stats.aggregator.service.storage.SimilarityStorage;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the aggregator state on local disk: a memory-mapped snapshot of weights, weight sums
+ * and pair min-sums, plus a changelog of the user actions applied since that snapshot.
+ * Both carry the consumer offsets they correspond to, so a restart loads the snapshot,
+ * replays the changelog up to its last committed batch and resumes from those offsets.
+ * <p>
+ * Workers share the state but commit independently. Changelog actions carry their record
+ * offset and are replayed only once a commit covers them, and a snapshot is taken only
+ * when every worker has reached {@link #checkpoint()} with nothing left uncommitted, so
+ * neither holds an action whose offset a restart would consume again.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AggregatorStateStore {
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String CHANGELOG_PREFIX = "changelog-";
+    private static final int SNAPSHOT_MAGIC = 0x45574D53;
+    private static final byte RECORD_ACTION = 1;
+    private static final byte RECORD_COMMIT = 2;
+    private static final ActionTypeAvro[] ACTION_TYPES = ActionTypeAvro.values();
+
+    private final StateConfig config;
+    private final SimilarityStorage storage;
+
+    private final Map<TopicPartition, Long> committedOffsets = new ConcurrentHashMap<>();
+    private final Object barrier = new Object();
+    private int workers;
+    private int waiting;
+    private long round;
+    private Path directory;
+    private long generation;
+    private DataOutputStream changelog;
+    private volatile Instant lastSnapshot = Instant.now();
+    private volatile boolean invalid;
+
+    public boolean isEnabled() {
+        return config.isEnabled();
+    }
+
+    public Map<TopicPartition, Long> getCommittedOffsets() {
+        return committedOffsets;
+    }
+
+    public void restore(Consumer<UserActionAvro> replay) {
+        if (!isEnabled()) {
+            return;
+        }
+        try {
+            directory = Paths.get(config.getDirectory());
+            Files.createDirectories(directory);
+
+            Path snapshot = directory.resolve(SNAPSHOT_FILE);
+            if (Files.exists(snapshot)) {
+                readSnapshot(snapshot);
+            }
+
+            Path changelogPath = changelogPath(generation);
+            int replayed = Files.exists(changelogPath) ? replayChangelog(changelogPath, replay) : 0;
+            log.info("Restored aggregator state generation={}, replayed {} actions, offsets={}",
+                    generation, replayed, committedOffsets);
+
+            snapshot();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error with aggregator state restore", e);
+        }
+    }
+
+    /**
+     * Drops the in-memory state and restores it from disk, so it holds exactly the actions
+     * covered by committed offsets, or nothing when the store is disabled. No worker may be running.
+     */
+    public void rebuild(Consumer<UserActionAvro> replay) {
+        close();
+        storage.clear();
+        committedOffsets.clear();
+        invalid = false;
+        restore(replay);
+    }
+
+    // set by a worker that failed with actions applied past its offsets; no snapshot is taken until a rebuild
+    public void invalidate() {
+        invalid = true;
+    }
+
+    public synchronized void append(UserActionAvro action, TopicPartition partition, long offset) {
+        if (!isEnabled() || action == null) {
+            return;
+        }
+        try {
+            changelog.writeByte(RECORD_ACTION);
+            changelog.writeUTF(partition.topic());
+            changelog.writeInt(partition.partition());
+            changelog.writeLong(offset);
+            changelog.writeLong(action.getEventId());
+            changelog.writeLong(action.getUserId());
+            changelog.writeByte(action.getActionType().ordinal());
+            changelog.writeLong(action.getTimestamp().toEpochMilli());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error with aggregator changelog write", e);
+        }
+    }
+
+    public void commit(Map<TopicPartition, OffsetAndMetadata> offsets) {
+        if (!isEnabled() || offsets.isEmpty()) {
+            return;
+        }
+        try {
+            writeCommit(offsets);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error with aggregator changelog commit", e);
+        }
+    }
+
+    public void register() {
+        synchronized (barrier) {
+            workers++;
+        }
+    }
+
+    // a leaving worker ends the current round without a snapshot; the rest retry on their next checkpoint
+    public void deregister() {
+        synchronized (barrier) {
+            workers--;
+            releaseRound();
+        }
+    }
+
+    /**
+     * Called by a worker that has committed everything it applied. Once a snapshot is due,
+     * workers wait here until all registered ones arrive, and the last one takes it.
+     */
+    public void checkpoint() {
+        if (!isEnabled() || invalid || !snapshotDue()) {
+            return;
+        }
+        synchronized (barrier) {
+            long current = round;
+            if (++waiting < workers) {
+                try {
+                    while (round == current) {
+                        barrier.wait();
+                    }
+                } catch (InterruptedException e) {
+                    if (round == current) {
+                        waiting--;
+                    }
+                    Thread.currentThread().interrupt();
+                }
+                return;
+            }
+            try {
+                if (!invalid && snapshotDue()) {
+                    snapshot();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error with aggregator snapshot", e);
+            } finally {
+                releaseRound();
+            }
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (changelog == null) {
+            return;
+        }
+        try {
+            changelog.close();
+        } catch (IOException e) {
+            log.warn("Error with aggregator changelog close", e);
+        }
+    }
+
+    private synchronized void writeCommit(Map<TopicPartition, OffsetAndMetadata> offsets) throws IOException {
+        offsets.forEach((partition, offset) -> committedOffsets.put(partition, offset.offset()));
+        changelog.writeByte(RECORD_COMMIT);
+        changelog.writeInt(committedOffsets.size());
+        for (Map.Entry<TopicPartition, Long> entry : committedOffsets.entrySet()) {
+            changelog.writeUTF(entry.getKey().topic());
+            changelog.writeInt(entry.getKey().partition());
+            changelog.writeLong(entry.getValue());
+        }
+        changelog.flush();
+    }
+
+    private void releaseRound() {
+        waiting = 0;
+        round++;
+        barrier.notifyAll();
+    }
+
+    private boolean snapshotDue() {
+        return Instant.now().isAfter(lastSnapshot.plus(config.getSnapshotInterval()));
+    }
+
+    private synchronized void snapshot() throws IOException {
+        long next = generation + 1;
+        writeSnapshot(next);
+        close();
+
+        generation = next;
+        changelog = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(changelogPath(generation),
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)));
+        lastSnapshot = Instant.now();
+        deleteStaleChangelogs();
+    }
+
+    private void writeSnapshot(long snapshotGeneration) throws IOException {
+        long[] counts = new long[3];
+        storage.forEachWeight((eventId, userId, weight) -> counts[0]++);
+        storage.forEachWeightSum((eventId, sum) -> counts[1]++);
+        storage.forEachMinWeightsSum((first, second, sum) -> counts[2]++);
+
+        long size = Integer.BYTES + Long.BYTES + Integer.BYTES + 3L * Integer.BYTES
+                + counts[0] * (2 * Long.BYTES + Double.BYTES)
+                + counts[1] * (Long.BYTES + Double.BYTES)
+                + counts[2] * (2 * Long.BYTES + Double.BYTES);
+        for (TopicPartition partition : committedOffsets.keySet()) {
+            size += Short.BYTES + partition.topic().getBytes(StandardCharsets.UTF_8).length + Integer.BYTES + Long.BYTES;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Aggregator snapshot exceeds a single mapped region: " + size + " bytes");
+        }
+
+        Path tmp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(SNAPSHOT_MAGIC);
+            buffer.putLong(snapshotGeneration);
+
+            buffer.putInt(committedOffsets.size());
+            for (Map.Entry<TopicPartition, Long> entry : committedOffsets.entrySet()) {
+                byte[] topic = entry.getKey().topic().getBytes(StandardCharsets.UTF_8);
+                buffer.putShort((short) topic.length);
+                buffer.put(topic);
+                buffer.putInt(entry.getKey().partition());
+                buffer.putLong(entry.getValue());
+            }
+
+            buffer.putInt((int) counts[0]);
+            storage.forEachWeight((eventId, userId, weight) -> buffer.putLong(eventId).putLong(userId).putDouble(weight));
+            buffer.putInt((int) counts[1]);
+            storage.forEachWeightSum((eventId, sum) -> buffer.putLong(eventId).putDouble(sum));
+            buffer.putInt((int) counts[2]);
+            storage.forEachMinWeightsSum((first, second, sum) -> buffer.putLong(first).putLong(second).putDouble(sum));
+
+            buffer.force();
+        }
+        Files.move(tmp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.debug("Aggregator snapshot generation={} written, {} bytes", snapshotGeneration, size);
+    }
+
+    private void readSnapshot(Path snapshot) throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("Unknown aggregator snapshot format: " + snapshot);
+            }
+            generation = buffer.getLong();
+
+            int partitions = buffer.getInt();
+            for (int i = 0; i < partitions; i++) {
+                byte[] topic = new byte[buffer.getShort()];
+                buffer.get(topic);
+                committedOffsets.put(new TopicPartition(new String(topic, StandardCharsets.UTF_8), buffer.getInt()),
+                        buffer.getLong());
+            }
+
+            int weights = buffer.getInt();
+            for (int i = 0; i < weights; i++) {
+                storage.putWeight(buffer.getLong(), buffer.getLong(), buffer.getDouble());
+            }
+            int sums = buffer.getInt();
+            for (int i = 0; i < sums; i++) {
+                storage.addWeightSum(buffer.getLong(), buffer.getDouble());
+            }
+            int minSums = buffer.getInt();
+            for (int i = 0; i < minSums; i++) {
+                long first = buffer.getLong();
+                long second = buffer.getLong();
+                double sum = buffer.getDouble();
+                storage.addMinWeightsSum(first, second, sum);
+
+                double norms = Math.sqrt(storage.getWeightSum(first)) * Math.sqrt(storage.getWeightSum(second));
+                if (norms > 0.0) {
+                    storage.putSimilarity(first, second, sum / norms);
+                }
+            }
+        }
+    }
+
+    // actions of other workers' open batches stay pending until a commit covers their offsets
+    private int replayChangelog(Path changelogPath, Consumer<UserActionAvro> replay) throws IOException {
+        List<LoggedAction> pending = new ArrayList<>();
+        int replayed = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(changelogPath)))) {
+            while (true) {
+                byte type = in.readByte();
+                if (type == RECORD_ACTION) {
+                    TopicPartition partition = new TopicPartition(in.readUTF(), in.readInt());
+                    long offset = in.readLong();
+                    pending.add(new LoggedAction(partition, offset, UserActionAvro.newBuilder()
+                            .setEventId(in.readLong())
+                            .setUserId(in.readLong())
+                            .setActionType(ACTION_TYPES[in.readByte()])
+                            .setTimestamp(Instant.ofEpochMilli(in.readLong()))
+                            .build()));
+                } else if (type == RECORD_COMMIT) {
+                    int partitions = in.readInt();
+                    for (int i = 0; i < partitions; i++) {
+                        committedOffsets.put(new TopicPartition(in.readUTF(), in.readInt()), in.readLong());
+                    }
+                    int before = pending.size();
+                    pending.removeIf(logged -> {
+                        Long committed = committedOffsets.get(logged.partition());
+                        if (committed == null || logged.offset() >= committed) {
+                            return false;
+                        }
+                        replay.accept(logged.action());
+                        return true;
+                    });
+                    replayed += before - pending.size();
+                } else {
+                    throw new IOException("Unknown aggregator changelog record type: " + type);
+                }
+            }
+        } catch (EOFException e) {
+            if (!pending.isEmpty()) {
+                log.warn("Dropping {} uncommitted actions from the changelog tail", pending.size());
+            }
+        }
+        return replayed;
+    }
+
+    private void deleteStaleChangelogs() throws IOException {
+        String current = changelogPath(generation).getFileName().toString();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.startsWith(CHANGELOG_PREFIX) && !name.equals(current)) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    private Path changelogPath(long changelogGeneration) {
+        return directory.resolve(CHANGELOG_PREFIX + changelogGeneration + ".log");
+    }
+
+    private record LoggedAction(TopicPartition partition, long offset, UserActionAvro action) {
+    }
+}
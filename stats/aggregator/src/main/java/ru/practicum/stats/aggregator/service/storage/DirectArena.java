@@ -0,0 +1,77 @@
+package ru.practicum.stats.aggregator.service.storage;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayDeque;
+
+/**
+ * Carves off-heap {@link LongDoubleHashMap} tables out of shared direct chunks, so the many
+ * small inner maps do not each pay for a direct buffer of their own. Table sizes are powers
+ * of two; a table released on rehash is reused by the next table of the same size.
+ * Memory is held until the arena itself becomes unreachable.
+ */
+final class DirectArena {
+    static final int CHUNK_BYTES = 1 << 20;
+    private static final int MAX_SHARED_BYTES = CHUNK_BYTES >> 3;
+
+    @SuppressWarnings("unchecked")
+    private final ArrayDeque<Region>[] free = new ArrayDeque[Integer.SIZE];
+    private ByteBuffer chunk;
+    private int chunkUsed;
+    private long reservedBytes;
+
+    synchronized Region allocate(int bytes) {
+        if (Integer.bitCount(bytes) != 1) {
+            throw new IllegalArgumentException("Table size must be a power of two: " + bytes);
+        }
+        if (bytes > MAX_SHARED_BYTES) {
+            reservedBytes += bytes;
+            return new Region(newBuffer(bytes), 0, bytes);
+        }
+
+        ArrayDeque<Region> regions = free[Integer.numberOfTrailingZeros(bytes)];
+        Region reused = regions == null ? null : regions.poll();
+        if (reused != null) {
+            reused.clear();
+            return reused;
+        }
+
+        if (chunk == null || chunkUsed + bytes > CHUNK_BYTES) {
+            chunk = newBuffer(CHUNK_BYTES);
+            chunkUsed = 0;
+            reservedBytes += CHUNK_BYTES;
+        }
+        Region region = new Region(chunk, chunkUsed, bytes);
+        chunkUsed += bytes;
+        return region;
+    }
+
+    synchronized void release(Region region) {
+        if (region.bytes() > MAX_SHARED_BYTES) {
+            reservedBytes -= region.bytes();
+            return;
+        }
+        int sizeClass = Integer.numberOfTrailingZeros(region.bytes());
+        if (free[sizeClass] == null) {
+            free[sizeClass] = new ArrayDeque<>();
+        }
+        free[sizeClass].push(region);
+    }
+
+    synchronized long reservedBytes() {
+        return reservedBytes;
+    }
+
+    private static ByteBuffer newBuffer(int bytes) {
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    record Region(ByteBuffer buffer, int offset, int bytes) {
+
+        void clear() {
+            for (int i = offset; i < offset + bytes; i += Long.BYTES) {
+                buffer.putLong(i, 0L);
+            }
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package ru.practicum.stats.aggregator.service.storage;
+
+@FunctionalInterface
+public interface LongDoubleConsumer {
+
+    void accept(long key, double value);
+
+}
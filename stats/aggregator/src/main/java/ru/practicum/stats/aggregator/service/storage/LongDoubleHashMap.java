@@ -0,0 +1,278 @@
+package ru.practicum.stats.aggregator.service.storage;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Open-addressing long -> double map with linear probing. Key {@code 0} marks a free slot,
+ * so an actual zero key is kept aside in {@link #zeroValue}. Slots live either in plain arrays
+ * or in a {@link DirectArena} region outside the Java heap. Not thread-safe.
+ */
+public final class LongDoubleHashMap {
+    private static final int MIN_CAPACITY = 4;
+    private static final int MAX_CAPACITY = 1 << 30;
+    private static final double LOAD_FACTOR = 0.75;
+
+    private Slots slots;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+    private boolean hasZeroKey;
+    private double zeroValue;
+
+    private LongDoubleHashMap(Slots slots) {
+        init(slots);
+    }
+
+    public static LongDoubleHashMap onHeap(int expectedSize) {
+        return new LongDoubleHashMap(new HeapSlots(capacityFor(expectedSize)));
+    }
+
+    static LongDoubleHashMap offHeap(int expectedSize, DirectArena arena) {
+        return new LongDoubleHashMap(new DirectSlots(arena, capacityFor(expectedSize)));
+    }
+
+    public int size() {
+        return size + (hasZeroKey ? 1 : 0);
+    }
+
+    public boolean containsKey(long key) {
+        if (key == 0) {
+            return hasZeroKey;
+        }
+        return slots.key(indexOf(key)) != 0;
+    }
+
+    public double get(long key, double defaultValue) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : defaultValue;
+        }
+        int index = indexOf(key);
+        return slots.key(index) == 0 ? defaultValue : slots.value(index);
+    }
+
+    public void put(long key, double value) {
+        if (key == 0) {
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int index = indexOf(key);
+        if (slots.key(index) == 0) {
+            insert(index, key, value);
+        } else {
+            slots.value(index, value);
+        }
+    }
+
+    public double addTo(long key, double delta) {
+        if (key == 0) {
+            zeroValue = hasZeroKey ? zeroValue + delta : delta;
+            hasZeroKey = true;
+            return zeroValue;
+        }
+        int index = indexOf(key);
+        if (slots.key(index) == 0) {
+            insert(index, key, delta);
+            return delta;
+        }
+        double value = slots.value(index) + delta;
+        slots.value(index, value);
+        return value;
+    }
+
+    public void forEach(LongDoubleConsumer action) {
+        if (hasZeroKey) {
+            action.accept(0, zeroValue);
+        }
+        for (int i = 0; i < slots.capacity(); i++) {
+            long key = slots.key(i);
+            if (key != 0) {
+                action.accept(key, slots.value(i));
+            }
+        }
+    }
+
+    /**
+     * Hands the slots back to their arena; the map must not be used afterwards.
+     */
+    void release() {
+        slots.release();
+    }
+
+    private void init(Slots slots) {
+        this.slots = slots;
+        this.mask = slots.capacity() - 1;
+        this.resizeThreshold = (int) (slots.capacity() * LOAD_FACTOR);
+    }
+
+    private int indexOf(long key) {
+        int index = hash(key) & mask;
+        long current;
+        while ((current = slots.key(index)) != 0 && current != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void insert(int index, long key, double value) {
+        slots.set(index, key, value);
+        if (++size > resizeThreshold) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        Slots old = slots;
+        if (old.capacity() >= MAX_CAPACITY) {
+            throw new IllegalStateException("Map cannot grow past " + MAX_CAPACITY + " slots");
+        }
+        init(old.allocate(old.capacity() << 1));
+        for (int i = 0; i < old.capacity(); i++) {
+            long key = old.key(i);
+            if (key != 0) {
+                slots.set(indexOf(key), key, old.value(i));
+            }
+        }
+        old.release();
+    }
+
+    static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    static int capacityFor(int expectedSize) {
+        int capacity = Integer.highestOneBit((int) Math.ceil(Math.max(expectedSize, 1) / LOAD_FACTOR));
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalArgumentException("Expected size is too large: " + expectedSize);
+        }
+        return Math.max(MIN_CAPACITY, capacity << 1);
+    }
+
+    private interface Slots {
+
+        int capacity();
+
+        long key(int index);
+
+        double value(int index);
+
+        void value(int index, double value);
+
+        void set(int index, long key, double value);
+
+        Slots allocate(int capacity);
+
+        void release();
+
+    }
+
+    private static final class HeapSlots implements Slots {
+        private final long[] keys;
+        private final double[] values;
+
+        HeapSlots(int capacity) {
+            this.keys = new long[capacity];
+            this.values = new double[capacity];
+        }
+
+        @Override
+        public int capacity() {
+            return keys.length;
+        }
+
+        @Override
+        public long key(int index) {
+            return keys[index];
+        }
+
+        @Override
+        public double value(int index) {
+            return values[index];
+        }
+
+        @Override
+        public void value(int index, double value) {
+            values[index] = value;
+        }
+
+        @Override
+        public void set(int index, long key, double value) {
+            keys[index] = key;
+            values[index] = value;
+        }
+
+        @Override
+        public Slots allocate(int capacity) {
+            return new HeapSlots(capacity);
+        }
+
+        @Override
+        public void release() {
+        }
+    }
+
+    private static final class DirectSlots implements Slots {
+        private static final int SLOT_BYTES = Long.BYTES + Double.BYTES;
+        // 2^26 slots of 16 bytes keep every offset of a table within a ByteBuffer's int index range
+        private static final int MAX_DIRECT_CAPACITY = 1 << 26;
+
+        private final DirectArena arena;
+        private final DirectArena.Region region;
+        private final ByteBuffer buffer;
+        private final int base;
+        private final int capacity;
+
+        DirectSlots(DirectArena arena, int capacity) {
+            if (capacity > MAX_DIRECT_CAPACITY) {
+                throw new IllegalStateException("Off-heap map cannot grow past " + MAX_DIRECT_CAPACITY + " slots");
+            }
+            this.arena = arena;
+            this.capacity = capacity;
+            this.region = arena.allocate(capacity * SLOT_BYTES);
+            this.buffer = region.buffer();
+            this.base = region.offset();
+        }
+
+        @Override
+        public int capacity() {
+            return capacity;
+        }
+
+        @Override
+        public long key(int index) {
+            return buffer.getLong(offsetOf(index));
+        }
+
+        @Override
+        public double value(int index) {
+            return buffer.getDouble(offsetOf(index) + Long.BYTES);
+        }
+
+        @Override
+        public void value(int index, double value) {
+            buffer.putDouble(offsetOf(index) + Long.BYTES, value);
+        }
+
+        @Override
+        public void set(int index, long key, double value) {
+            int offset = offsetOf(index);
+            buffer.putLong(offset, key);
+            buffer.putDouble(offset + Long.BYTES, value);
+        }
+
+        @Override
+        public Slots allocate(int capacity) {
+            return new DirectSlots(arena, capacity);
+        }
+
+        @Override
+        public void release() {
+            arena.release(region);
+        }
+
+        private int offsetOf(int index) {
+            return base + index * SLOT_BYTES;
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package ru.practicum.stats.aggregator.service.storage;
+
+@FunctionalInterface
+public interface LongLongDoubleConsumer {
+
+    void accept(long first, long second, double value);
+
+}
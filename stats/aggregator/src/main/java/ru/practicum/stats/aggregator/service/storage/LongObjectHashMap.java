@@ -0,0 +1,96 @@
+package ru.practicum.stats.aggregator.service.storage;
+
+import java.util.function.BiConsumer;
+import java.util.function.LongFunction;
+
+/**
+ * Open-addressing long -> V map used as the outer level of the primitive storage.
+ * Key {@code 0} marks a free slot, a real zero key is kept aside. Not thread-safe.
+ */
+public final class LongObjectHashMap<V> {
+    private static final double LOAD_FACTOR = 0.75;
+
+    private long[] keys;
+    private Object[] values;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+    private V zeroValue;
+
+    public LongObjectHashMap(int expectedSize) {
+        init(LongDoubleHashMap.capacityFor(expectedSize));
+    }
+
+    public int size() {
+        return size + (zeroValue != null ? 1 : 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        if (key == 0) {
+            return zeroValue;
+        }
+        return (V) values[indexOf(key)];
+    }
+
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(long key, LongFunction<V> mappingFunction) {
+        if (key == 0) {
+            if (zeroValue == null) {
+                zeroValue = mappingFunction.apply(key);
+            }
+            return zeroValue;
+        }
+        int index = indexOf(key);
+        if (keys[index] != 0) {
+            return (V) values[index];
+        }
+        V value = mappingFunction.apply(key);
+        keys[index] = key;
+        values[index] = value;
+        if (++size > resizeThreshold) {
+            rehash();
+        }
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    public void forEach(BiConsumer<Long, V> action) {
+        if (zeroValue != null) {
+            action.accept(0L, zeroValue);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept(keys[i], (V) values[i]);
+            }
+        }
+    }
+
+    private void init(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        this.resizeThreshold = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private int indexOf(long key) {
+        int index = LongDoubleHashMap.hash(key) & mask;
+        while (keys[index] != 0 && keys[index] != key) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        init(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int index = indexOf(oldKeys[i]);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package ru.practicum.stats.aggregator.service.storage;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+public class MapSimilarityStorage implements SimilarityStorage {
+
+    private final ConcurrentMap<Long, ConcurrentMap<Long, Double>> weightMatrix = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Set<Long>> eventsByUser = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, Double> weightSumByEvent = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, ConcurrentMap<Long, Double>> minWeightsSums = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, ConcurrentMap<Long, Double>> similarityMatrix = new ConcurrentHashMap<>();
+
+    @Override
+    public double getWeight(long eventId, long userId, double defaultValue) {
+        Map<Long, Double> usersWeights = weightMatrix.get(eventId);
+        if (usersWeights == null) {
+            return defaultValue;
+        }
+        return usersWeights.getOrDefault(userId, defaultValue);
+    }
+
+    @Override
+    public void putWeight(long eventId, long userId, double weight) {
+        weightMatrix.computeIfAbsent(eventId, id -> new ConcurrentHashMap<>()).put(userId, weight);
+        eventsByUser.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(eventId);
+    }
+
+    @Override
+    public void forEachUserWeight(long userId, LongDoubleConsumer action) {
+        Set<Long> events = eventsByUser.get(userId);
+        if (events == null) {
+            return;
+        }
+        for (Long eventId : events) {
+            Map<Long, Double> usersWeights = weightMatrix.get(eventId);
+            Double weight = usersWeights == null ? null : usersWeights.get(userId);
+            if (weight != null) {
+                action.accept(eventId, weight);
+            }
+        }
+    }
+
+    @Override
+    public double addWeightSum(long eventId, double delta) {
+        return weightSumByEvent.merge(eventId, delta, Double::sum);
+    }
+
+    @Override
+    public double getWeightSum(long eventId) {
+        return weightSumByEvent.getOrDefault(eventId, 0.0);
+    }
+
+    @Override
+    public double addMinWeightsSum(long eventA, long eventB, double delta) {
+        return minWeightsSums
+                .computeIfAbsent(Math.min(eventA, eventB), e -> new ConcurrentHashMap<>())
+                .merge(Math.max(eventA, eventB), delta, Double::sum);
+    }
+
+    @Override
+    public void putSimilarity(long eventA, long eventB, double similarity) {
+        similarityMatrix
+                .computeIfAbsent(Math.min(eventA, eventB), e -> new ConcurrentHashMap<>())
+                .put(Math.max(eventA, eventB), similarity);
+    }
+
+    @Override
+    public double getSimilarity(long eventA, long eventB) {
+        Map<Long, Double> similarities = similarityMatrix.get(Math.min(eventA, eventB));
+        if (similarities == null) {
+            return 0.0;
+        }
+        return similarities.getOrDefault(Math.max(eventA, eventB), 0.0);
+    }
+
+    @Override
+    public void forEachWeight(LongLongDoubleConsumer action) {
+        weightMatrix.forEach((eventId, usersWeights) ->
+                usersWeights.forEach((userId, weight) -> action.accept(eventId, userId, weight)));
+    }
+
+    @Override
+    public void forEachWeightSum(LongDoubleConsumer action) {
+        weightSumByEvent.forEach(action::accept);
+    }
+
+    @Override
+    public void forEachMinWeightsSum(LongLongDoubleConsumer action) {
+        minWeightsSums.forEach((first, sums) ->
+                sums.forEach((second, sum) -> action.accept(first, second, sum)));
+    }
+
+    @Override
+    public void clear() {
+        weightMatrix.clear();
+        eventsByUser.clear();
+        weightSumByEvent.clear();
+        minWeightsSums.clear();
+        similarityMatrix.clear();
+    }
+}
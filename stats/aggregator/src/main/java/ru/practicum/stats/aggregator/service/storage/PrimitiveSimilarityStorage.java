@@ -0,0 +1,192 @@
+package ru.practicum.stats.aggregator.service.storage;
+
+/**
+ * Storage on primitive open-addressing maps: no boxed ids or weights, optionally with
+ * the inner tables placed off-heap. Weights are kept per user, which is also the
+ * user -> events index the incremental similarity update walks.
+ * <p>
+ * Every table is split into lock stripes by its outer key, so workers only contend
+ * when they touch the same stripe.
+ */
+public class PrimitiveSimilarityStorage implements SimilarityStorage {
+    private static final int INNER_EXPECTED_SIZE = 8;
+    private static final int STRIPE_BITS = 6;
+    private static final int STRIPES = 1 << STRIPE_BITS;
+
+    private final DirectArena arena;
+    private final int perStripe;
+    private final LongObjectHashMap<LongDoubleHashMap>[] weightsByUser;
+    private final LongDoubleHashMap[] weightSumByEvent;
+    private final LongObjectHashMap<LongDoubleHashMap>[] minWeightsSums;
+    private final LongObjectHashMap<LongDoubleHashMap>[] similarityMatrix;
+
+    public PrimitiveSimilarityStorage(boolean offHeap, int expectedEvents) {
+        this.arena = offHeap ? new DirectArena() : null;
+        this.perStripe = Math.max(expectedEvents / STRIPES, INNER_EXPECTED_SIZE);
+        this.weightsByUser = newStripes(perStripe);
+        this.weightSumByEvent = new LongDoubleHashMap[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            weightSumByEvent[i] = newMap(perStripe);
+        }
+        this.minWeightsSums = newStripes(perStripe);
+        this.similarityMatrix = newStripes(perStripe);
+    }
+
+    @Override
+    public double getWeight(long eventId, long userId, double defaultValue) {
+        LongObjectHashMap<LongDoubleHashMap> stripe = weightsByUser[stripeOf(userId)];
+        synchronized (stripe) {
+            LongDoubleHashMap weights = stripe.get(userId);
+            return weights == null ? defaultValue : weights.get(eventId, defaultValue);
+        }
+    }
+
+    @Override
+    public void putWeight(long eventId, long userId, double weight) {
+        LongObjectHashMap<LongDoubleHashMap> stripe = weightsByUser[stripeOf(userId)];
+        synchronized (stripe) {
+            stripe.computeIfAbsent(userId, id -> newMap(INNER_EXPECTED_SIZE)).put(eventId, weight);
+        }
+    }
+
+    @Override
+    public void forEachUserWeight(long userId, LongDoubleConsumer action) {
+        long[] eventIds;
+        double[] weights;
+        LongObjectHashMap<LongDoubleHashMap> stripe = weightsByUser[stripeOf(userId)];
+        synchronized (stripe) {
+            LongDoubleHashMap userWeights = stripe.get(userId);
+            if (userWeights == null) {
+                return;
+            }
+            eventIds = new long[userWeights.size()];
+            weights = new double[userWeights.size()];
+            int[] next = {0};
+            userWeights.forEach((eventId, weight) -> {
+                eventIds[next[0]] = eventId;
+                weights[next[0]++] = weight;
+            });
+        }
+        // the action takes pair locks, so it runs on a copy outside the user stripe
+        for (int i = 0; i < eventIds.length; i++) {
+            action.accept(eventIds[i], weights[i]);
+        }
+    }
+
+    @Override
+    public double addWeightSum(long eventId, double delta) {
+        LongDoubleHashMap stripe = weightSumByEvent[stripeOf(eventId)];
+        synchronized (stripe) {
+            return stripe.addTo(eventId, delta);
+        }
+    }
+
+    @Override
+    public double getWeightSum(long eventId) {
+        LongDoubleHashMap stripe = weightSumByEvent[stripeOf(eventId)];
+        synchronized (stripe) {
+            return stripe.get(eventId, 0.0);
+        }
+    }
+
+    @Override
+    public double addMinWeightsSum(long eventA, long eventB, double delta) {
+        long first = Math.min(eventA, eventB);
+        LongObjectHashMap<LongDoubleHashMap> stripe = minWeightsSums[stripeOf(first)];
+        synchronized (stripe) {
+            return stripe.computeIfAbsent(first, id -> newMap(INNER_EXPECTED_SIZE))
+                    .addTo(Math.max(eventA, eventB), delta);
+        }
+    }
+
+    @Override
+    public void putSimilarity(long eventA, long eventB, double similarity) {
+        long first = Math.min(eventA, eventB);
+        LongObjectHashMap<LongDoubleHashMap> stripe = similarityMatrix[stripeOf(first)];
+        synchronized (stripe) {
+            stripe.computeIfAbsent(first, id -> newMap(INNER_EXPECTED_SIZE))
+                    .put(Math.max(eventA, eventB), similarity);
+        }
+    }
+
+    @Override
+    public double getSimilarity(long eventA, long eventB) {
+        long first = Math.min(eventA, eventB);
+        LongObjectHashMap<LongDoubleHashMap> stripe = similarityMatrix[stripeOf(first)];
+        synchronized (stripe) {
+            LongDoubleHashMap similarities = stripe.get(first);
+            return similarities == null ? 0.0 : similarities.get(Math.max(eventA, eventB), 0.0);
+        }
+    }
+
+    @Override
+    public void forEachWeight(LongLongDoubleConsumer action) {
+        for (LongObjectHashMap<LongDoubleHashMap> stripe : weightsByUser) {
+            synchronized (stripe) {
+                stripe.forEach((userId, weights) ->
+                        weights.forEach((eventId, weight) -> action.accept(eventId, userId, weight)));
+            }
+        }
+    }
+
+    @Override
+    public void forEachWeightSum(LongDoubleConsumer action) {
+        for (LongDoubleHashMap stripe : weightSumByEvent) {
+            synchronized (stripe) {
+                stripe.forEach(action);
+            }
+        }
+    }
+
+    @Override
+    public void forEachMinWeightsSum(LongLongDoubleConsumer action) {
+        for (LongObjectHashMap<LongDoubleHashMap> stripe : minWeightsSums) {
+            synchronized (stripe) {
+                stripe.forEach((first, sums) ->
+                        sums.forEach((second, sum) -> action.accept(first, second, sum)));
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < STRIPES; i++) {
+            releaseInner(weightsByUser[i]);
+            weightsByUser[i] = new LongObjectHashMap<>(perStripe);
+            weightSumByEvent[i].release();
+            weightSumByEvent[i] = newMap(perStripe);
+            releaseInner(minWeightsSums[i]);
+            minWeightsSums[i] = new LongObjectHashMap<>(perStripe);
+            releaseInner(similarityMatrix[i]);
+            similarityMatrix[i] = new LongObjectHashMap<>(perStripe);
+        }
+    }
+
+    /**
+     * Direct memory reserved by the off-heap tables, {@code 0} when they live on the heap.
+     */
+    public long offHeapBytes() {
+        return arena == null ? 0 : arena.reservedBytes();
+    }
+
+    static int stripeOf(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - STRIPE_BITS));
+    }
+
+    private static void releaseInner(LongObjectHashMap<LongDoubleHashMap> stripe) {
+        stripe.forEach((key, map) -> map.release());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static LongObjectHashMap<LongDoubleHashMap>[] newStripes(int expectedSize) {
+        LongObjectHashMap<LongDoubleHashMap>[] stripes = new LongObjectHashMap[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new LongObjectHashMap<>(expectedSize);
+        }
+        return stripes;
+    }
+
+    private LongDoubleHashMap newMap(int expectedSize) {
+        return arena != null ? LongDoubleHashMap.offHeap(expectedSize, arena) : LongDoubleHashMap.onHeap(expectedSize);
+    }
+}
@@ -0,0 +1,32 @@
+package ru.practicum.stats.aggregator.service.storage;
+
+public interface SimilarityStorage {
+
+    double getWeight(long eventId, long userId, double defaultValue);
+
+    void putWeight(long eventId, long userId, double weight);
+
+    void forEachUserWeight(long userId, LongDoubleConsumer action);
+
+    double addWeightSum(long eventId, double delta);
+
+    double getWeightSum(long eventId);
+
+    double addMinWeightsSum(long eventA, long eventB, double delta);
+
+    void putSimilarity(long eventA, long eventB, double similarity);
+
+    double getSimilarity(long eventA, long eventB);
+
+    void forEachWeight(LongLongDoubleConsumer action);
+
+    void forEachWeightSum(LongDoubleConsumer action);
+
+    void forEachMinWeightsSum(LongLongDoubleConsumer action);
+
+    /**
+     * Drops all weights, sums and similarities. Must not run concurrently with updates.
+     */
+    void clear();
+
+}
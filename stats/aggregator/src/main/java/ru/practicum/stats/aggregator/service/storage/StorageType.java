@@ -0,0 +1,6 @@
+package ru.practicum.stats.aggregator.service.storage;
+
+public enum StorageType {
+    MAP,
+    PRIMITIVE
+}
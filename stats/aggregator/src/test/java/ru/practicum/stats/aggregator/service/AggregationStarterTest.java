@@ -0,0 +1,159 @@
+package ru.practicum.stats.aggregator.service;
+
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.ewm.stats.avro.ActionTypeAvro;
+import ru.practicum.ewm.stats.avro.EventSimilarityAvro;
+import ru.practicum.ewm.stats.avro.UserActionAvro;
+import ru.practicum.stats.aggregator.config.CoalescingConfig;
+import ru.practicum.stats.aggregator.config.ConsumerClient;
+import ru.practicum.stats.aggregator.config.ProducerClient;
+import ru.practicum.stats.aggregator.config.SimilarityFormatConfig;
+import ru.practicum.stats.aggregator.config.StateConfig;
+import ru.practicum.stats.aggregator.config.TransactionConfig;
+import ru.practicum.stats.aggregator.service.state.AggregatorStateStore;
+import ru.practicum.stats.aggregator.service.storage.MapSimilarityStorage;
+import ru.practicum.stats.aggregator.service.storage.SimilarityStorage;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AggregationStarterTest {
+    private static final String TOPIC = "stats.user-actions.v1";
+    private static final TopicPartition PARTITION = new TopicPartition(TOPIC, 0);
+
+    @TempDir
+    Path stateDirectory;
+
+    @Test
+    void abortedBatchIsProducedAgainFromRebuiltState() {
+        MockConsumer<String, SpecificRecordBase> consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        List<MockProducer<String, SpecificRecordBase>> producers = new ArrayList<>();
+
+        // the first transaction fails on commit, after its similarities were applied to the state
+        consumer.schedulePollTask(() -> deliverActions(consumer));
+        consumer.schedulePollTask(() -> deliverActions(consumer));
+        consumer.schedulePollTask(consumer::wakeup);
+
+        starter(consumer, producers).start();
+
+        assertEquals(2, producers.size());
+        assertTrue(producers.get(0).transactionAborted());
+        assertTrue(producers.get(0).history().isEmpty());
+
+        List<ProducerRecord<String, SpecificRecordBase>> produced = producers.get(1).history();
+        assertEquals(1, produced.size());
+        EventSimilarityAvro similarity = (EventSimilarityAvro) produced.get(0).value();
+        assertEquals(10L, similarity.getEventA());
+        assertEquals(20L, similarity.getEventB());
+        assertEquals(1.0, similarity.getScore());
+
+        Map<TopicPartition, OffsetAndMetadata> committed = producers.get(1).consumerGroupOffsetsHistory()
+                .get(0).values().iterator().next();
+        assertEquals(2L, committed.get(PARTITION).offset());
+    }
+
+    private AggregationStarter starter(MockConsumer<String, SpecificRecordBase> consumer,
+                                       List<MockProducer<String, SpecificRecordBase>> producers) {
+        StateConfig stateConfig = new StateConfig();
+        stateConfig.setEnabled(true);
+        stateConfig.setDirectory(stateDirectory.toString());
+        TransactionConfig transactionConfig = new TransactionConfig();
+        transactionConfig.setEnabled(true);
+        transactionConfig.setInstanceId("test");
+
+        SimilarityStorage storage = new MapSimilarityStorage();
+        AggregationStarter starter = new AggregationStarter(consumerClient(consumer), producerClient(producers),
+                new EventSimilarityService(storage), new AggregatorStateStore(stateConfig, storage),
+                new CoalescingConfig(), transactionConfig, new SimilarityFormatConfig());
+        ReflectionTestUtils.setField(starter, "consumerTopic", TOPIC);
+        ReflectionTestUtils.setField(starter, "producerTopic", "stats.events-similarity.v1");
+        ReflectionTestUtils.setField(starter, "pollTimeout", Duration.ofMillis(10));
+        ReflectionTestUtils.setField(starter, "workers", 1);
+        return starter;
+    }
+
+    // the mock forgets delivered records, so each poll task hands out the partition from its start again
+    private static void deliverActions(MockConsumer<String, SpecificRecordBase> consumer) {
+        consumer.rebalance(List.of(PARTITION));
+        consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 0L, null, like(1L, 10L)));
+        consumer.addRecord(new ConsumerRecord<>(TOPIC, 0, 1L, null, like(1L, 20L)));
+    }
+
+    private static UserActionAvro like(long userId, long eventId) {
+        return UserActionAvro.newBuilder()
+                .setUserId(userId)
+                .setEventId(eventId)
+                .setActionType(ActionTypeAvro.ACTION_LIKE)
+                .setTimestamp(Instant.ofEpochMilli(1_000L))
+                .build();
+    }
+
+    private static ConsumerClient consumerClient(MockConsumer<String, SpecificRecordBase> consumer) {
+        return new ConsumerClient() {
+            @Override
+            public Consumer<String, SpecificRecordBase> getConsumer() {
+                return consumer;
+            }
+
+            @Override
+            public Consumer<String, SpecificRecordBase> newConsumer() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public void stop() {
+            }
+        };
+    }
+
+    private static ProducerClient producerClient(List<MockProducer<String, SpecificRecordBase>> producers) {
+        return new ProducerClient() {
+            @Override
+            public Producer<String, SpecificRecordBase> getProducer() {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Producer<String, SpecificRecordBase> newTransactionalProducer(String transactionalId) {
+                MockProducer<String, SpecificRecordBase> producer =
+                        new MockProducer<>(true, new StringSerializer(), (topic, data) -> new byte[0]);
+                if (producers.isEmpty()) {
+                    producer.commitTransactionException = new KafkaException("commit failed");
+                }
+                producer.initTransactions();
+                producers.add(producer);
+                return producer;
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void stop() {
+            }
+        };
+    }
+}
@@ -0,0 +1,75 @@
+package ru.practicum.stats.analyzer.service.handler;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Top-k selection over n scored candidates: the bounded heap against the sort-and-limit it replaced.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TopKBenchmark {
+
+    @Param({"1000", "100000"})
+    public int n;
+
+    @Param({"10", "100"})
+    public int k;
+
+    private long[] ids;
+    private double[] scores;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        ids = new long[n];
+        scores = new double[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i + 1;
+            scores[i] = random.nextDouble();
+        }
+    }
+
+    @Benchmark
+    public long[] boundedHeap() {
+        TopK top = new TopK(k);
+        for (int i = 0; i < n; i++) {
+            top.offer(ids[i], scores[i]);
+        }
+        return top.drainIds();
+    }
+
+    @Benchmark
+    public List<Long> sortAndLimit() {
+        List<Map.Entry<Long, Double>> candidates = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            candidates.add(Map.entry(ids[i], scores[i]));
+        }
+        return candidates.stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue(Comparator.reverseOrder()))
+                .limit(k)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+}
@@ -1,9 +1,35 @@
 package ru.practicum.stats.analyzer.config;
 
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
 import ru.practicum.ewm.stats.avro.EventSimilarityAvro;
+import ru.practicum.ewm.stats.avro.EventSimilarityBatchAvro;
 
-public class EventSimilarityDeserializer extends BaseAvroDeserializer<EventSimilarityAvro> {
-    public EventSimilarityDeserializer() {
-        super(EventSimilarityAvro.getClassSchema());
+/**
+ * Reads similarity messages of both schema versions. The version comes from the
+ * {@value #SCHEMA_VERSION_HEADER} header; records without it are version 1.
+ */
+public class EventSimilarityDeserializer implements Deserializer<SpecificRecordBase> {
+    public static final String SCHEMA_VERSION_HEADER = "schema-version";
+
+    private final BaseAvroDeserializer<EventSimilarityAvro> v1 =
+            new BaseAvroDeserializer<>(EventSimilarityAvro.getClassSchema());
+    private final BaseAvroDeserializer<EventSimilarityBatchAvro> v2 =
+            new BaseAvroDeserializer<>(EventSimilarityBatchAvro.getClassSchema());
+
+    @Override
+    public SpecificRecordBase deserialize(String topic, byte[] data) {
+        return v1.deserialize(topic, data);
+    }
+
+    @Override
+    public SpecificRecordBase deserialize(String topic, Headers headers, byte[] data) {
+        Header version = headers == null ? null : headers.lastHeader(SCHEMA_VERSION_HEADER);
+        if (version != null && version.value() != null && version.value().length == 1 && version.value()[0] == 2) {
+            return v2.deserialize(topic, data);
+        }
+        return v1.deserialize(topic, data);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,17 @@
+package ru.practicum.stats.analyzer.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@Getter
+@Setter
+@ConfigurationProperties("analyzer.profile-cache")
+public class ProfileCacheConfig {
+    private int maxSize = 10_000;
+    private Duration ttl = Duration.ofMinutes(10);
+}
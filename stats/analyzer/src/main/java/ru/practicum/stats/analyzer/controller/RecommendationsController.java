@@ -1,7 +1,5 @@
 package ru.practicum.stats.analyzer.controller;
 
-import io.grpc.Status;
-import io.grpc.StatusRuntimeException;
 import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
@@ -9,12 +7,12 @@ import ru.practicum.grpc.stats.analyzer.RecommendationsControllerGrpc;
 import ru.practicum.grpc.stats.recommendations.InteractionsCountRequestProto;
 import ru.practicum.grpc.stats.recommendations.RecommendedEventProto;
 import ru.practicum.grpc.stats.recommendations.SimilarEventsRequestProto;
+import ru.practicum.grpc.stats.recommendations.UserPredictionsBatchRequestProto;
 import ru.practicum.grpc.stats.recommendations.UserPredictionsRequestProto;
+import ru.practicum.grpc.stats.recommendations.UserRecommendationsProto;
 import ru.practicum.stats.analyzer.service.handler.EventSimilarityHandler;
 
 import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
 
 @Slf4j
 @GrpcService
@@ -27,66 +25,37 @@ public class RecommendationsController extends RecommendationsControllerGrpc.Rec
 
     @Override
     public void getInteractionsCount(InteractionsCountRequestProto request, StreamObserver<RecommendedEventProto> responseObserver) {
-        try {
-            log.info("GRPC message InteractionsCountRequestProto received");
-            Set<Long> eventIds = new HashSet<>(request.getEventIdList());
-            List<RecommendedEventProto> results = eventSimilarityHandler.getInteractionsCount(eventIds);
-
-            for (int i = 0; i < request.getEventIdCount(); i++) {
-                responseObserver.onNext(results.get(i));
-            }
-            responseObserver.onCompleted();
-        } catch (Exception e) {
-            responseObserver.onError(new StatusRuntimeException(
-                    Status.INTERNAL
-                            .withDescription(e.getLocalizedMessage())
-                            .withCause(e)
-            ));
-        }
+        log.info("GRPC message InteractionsCountRequestProto received");
+        ResponsePump.start(responseObserver, () ->
+                eventSimilarityHandler.getInteractionsCount(new HashSet<>(request.getEventIdList())));
     }
 
     @Override
     public void getRecommendationsForUser(UserPredictionsRequestProto request, StreamObserver<RecommendedEventProto> responseObserver) {
-        try {
-            log.info("GRPC message UserPredictionsRequestProto received");
-            List<RecommendedEventProto> results = eventSimilarityHandler.getRecommendationsForUser(
-                    request.getUserId(),
-                    request.getMaxResults()
-            );
-
-            for (RecommendedEventProto proto : results) {
-                responseObserver.onNext(proto);
-            }
-            responseObserver.onCompleted();
-        } catch (Exception e) {
-            responseObserver.onError(new StatusRuntimeException(
-                    Status.INTERNAL
-                            .withDescription(e.getLocalizedMessage())
-                            .withCause(e)
-            ));
-        }
+        log.info("GRPC message UserPredictionsRequestProto received");
+        ResponsePump.start(responseObserver, () -> eventSimilarityHandler.getRecommendationsForUser(
+                request.getUserId(),
+                request.getMaxResults()
+        ));
     }
 
     @Override
     public void getSimilarEvents(SimilarEventsRequestProto request, StreamObserver<RecommendedEventProto> responseObserver) {
-        try {
-            log.info("GRPC message SimilarEventsRequestProto received");
-            List<RecommendedEventProto> results = eventSimilarityHandler.getSimilarEvents(
-                    request.getUserId(),
-                    request.getEventId(),
-                    request.getMaxResults()
-            );
+        log.info("GRPC message SimilarEventsRequestProto received");
+        ResponsePump.start(responseObserver, () -> eventSimilarityHandler.getSimilarEvents(
+                request.getUserId(),
+                request.getEventId(),
+                request.getMaxResults()
+        ));
+    }
 
-            for (RecommendedEventProto proto : results) {
-                responseObserver.onNext(proto);
-            }
-            responseObserver.onCompleted();
-        } catch (Exception e) {
-            responseObserver.onError(new StatusRuntimeException(
-                    Status.INTERNAL
-                            .withDescription(e.getLocalizedMessage())
-                            .withCause(e)
-            ));
-        }
+    @Override
+    public void getRecommendationsForUsers(UserPredictionsBatchRequestProto request,
+                                           StreamObserver<UserRecommendationsProto> responseObserver) {
+        log.info("GRPC message UserPredictionsBatchRequestProto received for {} users", request.getUserIdCount());
+        ResponsePump.start(responseObserver, () -> eventSimilarityHandler.getRecommendationsForUsers(
+                request.getUserIdList(),
+                request.getMaxResults()
+        ));
     }
 }
@@ -0,0 +1,85 @@
+package ru.practicum.stats.analyzer.controller;
+
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Pushes a lazily produced stream to a server-streaming call only while the transport is ready.
+ * The source is opened on the first pump, so a call cancelled before that does no work, and
+ * production stops as soon as the client cancels.
+ */
+@Slf4j
+final class ResponsePump<T> implements Runnable {
+    private final ServerCallStreamObserver<T> observer;
+    private final Supplier<Stream<T>> source;
+
+    private Stream<T> stream;
+    private Iterator<T> iterator;
+    private boolean done;
+
+    private ResponsePump(ServerCallStreamObserver<T> observer, Supplier<Stream<T>> source) {
+        this.observer = observer;
+        this.source = source;
+    }
+
+    static <T> void start(StreamObserver<T> responseObserver, Supplier<Stream<T>> source) {
+        ServerCallStreamObserver<T> observer = (ServerCallStreamObserver<T>) responseObserver;
+        ResponsePump<T> pump = new ResponsePump<>(observer, source);
+        observer.setOnCancelHandler(pump::cancel);
+        observer.setOnReadyHandler(pump);
+        pump.run();
+    }
+
+    @Override
+    public synchronized void run() {
+        if (done) {
+            return;
+        }
+        try {
+            while (observer.isReady()) {
+                if (observer.isCancelled()) {
+                    cancel();
+                    return;
+                }
+                if (iterator == null) {
+                    stream = source.get();
+                    iterator = stream.iterator();
+                }
+                if (!iterator.hasNext()) {
+                    close();
+                    observer.onCompleted();
+                    return;
+                }
+                observer.onNext(iterator.next());
+            }
+        } catch (Exception e) {
+            close();
+            observer.onError(new StatusRuntimeException(
+                    Status.INTERNAL
+                            .withDescription(e.getLocalizedMessage())
+                            .withCause(e)
+            ));
+        }
+    }
+
+    private synchronized void cancel() {
+        if (!done) {
+            log.debug("GRPC call cancelled by client, stopping response stream");
+            close();
+        }
+    }
+
+    private void close() {
+        done = true;
+        if (stream != null) {
+            stream.close();
+        }
+    }
+}
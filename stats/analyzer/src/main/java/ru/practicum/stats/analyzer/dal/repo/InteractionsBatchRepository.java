@@ -0,0 +1,11 @@
+package ru.practicum.stats.analyzer.dal.repo;
+
+import ru.practicum.stats.analyzer.dal.model.UserAction;
+
+import java.util.Collection;
+
+public interface InteractionsBatchRepository {
+
+    int upsertAllIfHigher(Collection<UserAction> actions);
+
+}
@@ -0,0 +1,54 @@
+package ru.practicum.stats.analyzer.dal.repo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.stats.analyzer.dal.model.UserAction;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class InteractionsBatchRepositoryImpl implements InteractionsBatchRepository {
+    private static final int CHUNK_SIZE = 1000;
+    private static final String INSERT = "insert into interactions (user_id, event_id, rating, ts) values ";
+    private static final String ON_CONFLICT = " on conflict (user_id, event_id) do update " +
+            "set rating = excluded.rating, ts = excluded.ts " +
+            "where interactions.rating < excluded.rating";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int upsertAllIfHigher(Collection<UserAction> actions) {
+        int affected = 0;
+        List<UserAction> chunk = new ArrayList<>(Math.min(actions.size(), CHUNK_SIZE));
+        for (UserAction action : actions) {
+            chunk.add(action);
+            if (chunk.size() == CHUNK_SIZE) {
+                affected += upsertChunk(chunk);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            affected += upsertChunk(chunk);
+        }
+        return affected;
+    }
+
+    private int upsertChunk(List<UserAction> chunk) {
+        StringBuilder sql = new StringBuilder(INSERT.length() + chunk.size() * 16 + ON_CONFLICT.length());
+        Object[] args = new Object[chunk.size() * 4];
+        sql.append(INSERT);
+        for (int i = 0; i < chunk.size(); i++) {
+            UserAction action = chunk.get(i);
+            sql.append(i == 0 ? "(?, ?, ?, ?)" : ", (?, ?, ?, ?)");
+            args[i * 4] = action.getUserId();
+            args[i * 4 + 1] = action.getEventId();
+            args[i * 4 + 2] = action.getRating();
+            args[i * 4 + 3] = Timestamp.from(action.getTs());
+        }
+        sql.append(ON_CONFLICT);
+        return jdbcTemplate.update(sql.toString(), args);
+    }
+}
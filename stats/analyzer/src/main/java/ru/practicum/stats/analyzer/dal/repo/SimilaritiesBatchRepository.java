@@ -0,0 +1,18 @@
+package ru.practicum.stats.analyzer.dal.repo;
+
+import ru.practicum.stats.analyzer.dal.model.EventSimilarity;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface SimilaritiesBatchRepository {
+
+    /**
+     * Writes each pair unless the stored row is newer, and returns the rows actually written.
+     */
+    List<EventSimilarity> upsertAll(Collection<EventSimilarity> similarities);
+
+    void forEachSimilarity(Consumer<EventSimilarity> action);
+
+}
@@ -0,0 +1,77 @@
+package ru.practicum.stats.analyzer.dal.repo;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.stats.analyzer.dal.model.EventSimilarity;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class SimilaritiesBatchRepositoryImpl implements SimilaritiesBatchRepository {
+    private static final int CHUNK_SIZE = 1000;
+    private static final String INSERT = "insert into similarities (event1, event2, similarity, ts) values ";
+    private static final String ON_CONFLICT = " on conflict (event1, event2) do update " +
+            "set similarity = excluded.similarity, ts = excluded.ts " +
+            "where excluded.ts >= similarities.ts " +
+            "returning id, event1, event2, similarity, ts";
+
+    private static final String SELECT_ALL = "select id, event1, event2, similarity, ts from similarities";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public List<EventSimilarity> upsertAll(Collection<EventSimilarity> similarities) {
+        List<EventSimilarity> written = new ArrayList<>(similarities.size());
+        List<EventSimilarity> chunk = new ArrayList<>(Math.min(similarities.size(), CHUNK_SIZE));
+        for (EventSimilarity similarity : similarities) {
+            chunk.add(similarity);
+            if (chunk.size() == CHUNK_SIZE) {
+                written.addAll(upsertChunk(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            written.addAll(upsertChunk(chunk));
+        }
+        return written;
+    }
+
+    @Override
+    public void forEachSimilarity(Consumer<EventSimilarity> action) {
+        jdbcTemplate.query(SELECT_ALL, rs -> {
+            action.accept(mapRow(rs));
+        });
+    }
+
+    private List<EventSimilarity> upsertChunk(List<EventSimilarity> chunk) {
+        StringBuilder sql = new StringBuilder(INSERT.length() + chunk.size() * 16 + ON_CONFLICT.length());
+        Object[] args = new Object[chunk.size() * 4];
+        sql.append(INSERT);
+        for (int i = 0; i < chunk.size(); i++) {
+            EventSimilarity similarity = chunk.get(i);
+            sql.append(i == 0 ? "(?, ?, ?, ?)" : ", (?, ?, ?, ?)");
+            args[i * 4] = similarity.getEventA();
+            args[i * 4 + 1] = similarity.getEventB();
+            args[i * 4 + 2] = similarity.getSimilarity();
+            args[i * 4 + 3] = Timestamp.from(similarity.getTs());
+        }
+        sql.append(ON_CONFLICT);
+        return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> mapRow(rs), args);
+    }
+
+    private static EventSimilarity mapRow(ResultSet rs) throws SQLException {
+        return new EventSimilarity(
+                rs.getLong("id"),
+                rs.getLong("event1"),
+                rs.getLong("event2"),
+                rs.getDouble("similarity"),
+                rs.getTimestamp("ts").toInstant()
+        );
+    }
+}
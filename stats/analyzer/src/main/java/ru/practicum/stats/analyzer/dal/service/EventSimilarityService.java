@@ -3,11 +3,15 @@ package ru.practicum.stats.analyzer.dal.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.stats.avro.EventSimilarityAvro;
 import ru.practicum.stats.analyzer.dal.model.EventSimilarity;
 import ru.practicum.stats.analyzer.dal.repo.SimilaritiesRepository;
 
-import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
@@ -15,41 +19,39 @@ import java.time.Instant;
 public class EventSimilarityService {
     private final SimilaritiesRepository repository;
 
-    public void handleRecord(EventSimilarityAvro record) throws InterruptedException {
-        Long eventA = (long) record.getEventA();
-        Long eventB = (long) record.getEventB();
-        Double score = record.getScore();
-        Instant ts = record.getTimestamp();
-        EventSimilarity dbRecord;
-
-        if (eventA != eventB) {
-            if (eventA > eventB) {
-                log.info("Looking up a record in similarities table by event1={} and event2={}.", eventB, eventA);
-                dbRecord = repository.findByEventAAndEventB(eventB, eventA);
-            } else {
-                log.info("Looking up a record in similarities table by event1={} and event2={}.", eventA, eventB);
-                dbRecord = repository.findByEventAAndEventB(eventA, eventB);
-            }
+    @Transactional
+    public Collection<EventSimilarity> handleBatch(Collection<EventSimilarityAvro> records) {
+        if (records.isEmpty()) {
+            return List.of();
+        }
 
-            EventSimilarity result = new EventSimilarity();
-            if (dbRecord == null) {
-                result.setEventA(Math.min(eventA, eventB));
-                result.setEventB(Math.max(eventA, eventB));
-                result.setSimilarity(record.getScore());
-                result.setTs(record.getTimestamp());
-                repository.save(result);
-                log.info("Adding a new record \"{}\" to the similarities table.", result);
-            } else {
-                result.setId(dbRecord.getId());
-                result.setEventA(dbRecord.getEventA());
-                result.setEventB(dbRecord.getEventB());
-                result.setSimilarity(record.getScore());
-                result.setTs(record.getTimestamp());
-                repository.save(result);
-                log.info("Updating the record with id={} in the similarities table. Record: {}", dbRecord.getId(), result);
+        // aggregator workers publish a pair from different partitions, so its timestamp, not the
+        // poll order, decides which record is the latest
+        Map<PairKey, EventSimilarity> latest = new HashMap<>();
+        for (EventSimilarityAvro record : records) {
+            long eventA = record.getEventA();
+            long eventB = record.getEventB();
+            if (eventA == eventB) {
+                log.debug("event1={} and event2={} identifiers are the same.", eventA, eventB);
+                continue;
             }
-        } else {
-            log.info("event1={} and event2={} identifiers are the same.", eventA, eventB);
+
+            long first = Math.min(eventA, eventB);
+            long second = Math.max(eventA, eventB);
+            latest.merge(new PairKey(first, second),
+                    new EventSimilarity(null, first, second, record.getScore(), record.getTimestamp()),
+                    (held, next) -> next.getTs().isBefore(held.getTs()) ? held : next);
         }
+
+        if (latest.isEmpty()) {
+            return List.of();
+        }
+        List<EventSimilarity> written = repository.upsertAll(latest.values());
+        log.debug("UPSERT similarities records={}, distinct={}, written={}",
+                records.size(), latest.size(), written.size());
+        return written;
+    }
+
+    private record PairKey(long eventA, long eventB) {
     }
-}
\ No newline at end of file
+}
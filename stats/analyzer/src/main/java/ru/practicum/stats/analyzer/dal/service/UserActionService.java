@@ -3,10 +3,15 @@ package ru.practicum.stats.analyzer.dal.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.ewm.stats.avro.UserActionAvro;
+import ru.practicum.stats.analyzer.dal.model.UserAction;
 import ru.practicum.stats.analyzer.dal.repo.InteractionsRepository;
 
-import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 @Slf4j
 @Service
@@ -14,21 +19,39 @@ import java.time.Instant;
 public class UserActionService {
     private final InteractionsRepository repository;
 
-    public void handleRecord(UserActionAvro record) {
-
-        Long userId = (long) record.getUserId();
-        Long eventId = (long) record.getEventId();
+    @Transactional
+    public Collection<UserAction> handleBatch(Collection<UserActionAvro> records) {
+        if (records.isEmpty()) {
+            return List.of();
+        }
+
+        // a multi-row upsert must not touch the same (user, event) row twice
+        Map<InteractionKey, UserAction> latest = new HashMap<>();
+        for (UserActionAvro record : records) {
+            long userId = record.getUserId();
+            long eventId = record.getEventId();
+            double rating = ratingOf(record);
+
+            latest.merge(new InteractionKey(userId, eventId),
+                    new UserAction(null, userId, eventId, rating, record.getTimestamp()),
+                    (current, candidate) -> candidate.getRating() > current.getRating() ? candidate : current);
+        }
+
+        int affected = repository.upsertAllIfHigher(latest.values());
+        log.debug("UPSERT interactions records={}, distinct={}, affectedRows={}",
+                records.size(), latest.size(), affected);
+        return latest.values();
+    }
 
-        Double rating = switch (record.getActionType().toString()) {
+    private static double ratingOf(UserActionAvro record) {
+        return switch (record.getActionType().toString()) {
             case "ACTION_LIKE" -> 1.0;
             case "ACTION_REGISTER" -> 0.8;
             case "ACTION_VIEW" -> 0.4;
             default -> 0.0;
         };
+    }
 
-        Instant ts = record.getTimestamp();
-
-        int affected = repository.upsertIfHigher(userId, eventId, rating, ts);
-        log.debug("UPSERT interactions userId={}, eventId={}, affectedRows={}", userId, eventId, affected);
+    private record InteractionKey(long userId, long eventId) {
     }
 }
@@ -1,17 +1,27 @@
 package ru.practicum.stats.analyzer.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
+import ru.practicum.stats.analyzer.dal.repo.SimilaritiesRepository;
+import ru.practicum.stats.analyzer.service.graph.SimilarityGraph;
 
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class AnalyzeRunner implements CommandLineRunner {
     final UserActionProcessor userActionProcessor;
     final EventSimilarityProcessor eventSimilarityProcessor;
+    final SimilaritiesRepository similaritiesRepository;
+    final SimilarityGraph similarityGraph;
 
     @Override
     public void run(String... args) {
+        similaritiesRepository.forEachSimilarity(sim ->
+                similarityGraph.update(sim.getEventA(), sim.getEventB(), sim.getSimilarity()));
+        log.info("Similarity graph warmed up with {} events", similarityGraph.size());
+
         Thread userActionThread = new Thread(userActionProcessor, "UserActionHandlerThread");
         userActionThread.setDaemon(false);
         userActionThread.start();
@@ -7,15 +7,19 @@ import org.apache.avro.specific.SpecificRecordBase;
 import org.apache.kafka.clients.consumer.*;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.WakeupException;
-import org.apache.kafka.common.serialization.VoidDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 import ru.practicum.ewm.stats.avro.EventSimilarityAvro;
+import ru.practicum.ewm.stats.avro.EventSimilarityBatchAvro;
 import ru.practicum.stats.analyzer.config.EventSimilarityDeserializer;
+import ru.practicum.stats.analyzer.dal.model.EventSimilarity;
 import ru.practicum.stats.analyzer.dal.service.EventSimilarityService;
+import ru.practicum.stats.analyzer.service.graph.SimilarityGraph;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,9 +33,10 @@ public class EventSimilarityProcessor implements Runnable {
     private static final Duration CONSUME_ATTEMPT_TIMEOUT = Duration.ofMillis(100);
 
     private final EventSimilarityService eventSimilarityService;
+    private final SimilarityGraph similarityGraph;
 
     private final AtomicBoolean running = new AtomicBoolean(true);
-    private volatile KafkaConsumer<Void, SpecificRecordBase> consumer;
+    private volatile KafkaConsumer<String, SpecificRecordBase> consumer;
 
     @Autowired
     private Environment env;
@@ -44,33 +49,44 @@ public class EventSimilarityProcessor implements Runnable {
         properties.put(ConsumerConfig.CLIENT_ID_CONFIG, "EventSimilarityConsumer");
         properties.put(ConsumerConfig.GROUP_ID_CONFIG, env.getProperty("analyzer.kafka.consumer2.properties.group.id"));
         properties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, env.getProperty("analyzer.kafka.bootstrap-servers"));
-        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, VoidDeserializer.class.getCanonicalName());
+        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getCanonicalName());
         properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, EventSimilarityDeserializer.class.getCanonicalName());
         properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
 
         this.consumer = new KafkaConsumer<>(properties);
-        String topic = env.getProperty("analyzer.kafka.consumer2.topic");
+        List<String> topics = new ArrayList<>();
+        topics.add(env.getProperty("analyzer.kafka.consumer2.topic"));
+        String batchTopic = env.getProperty("analyzer.kafka.consumer2.batch-topic");
+        if (batchTopic != null && !batchTopic.isBlank()) {
+            topics.add(batchTopic);
+        }
 
         try {
-            this.consumer.subscribe(List.of(topic));
+            this.consumer.subscribe(topics);
 
-            int processedSinceCommit = 0;
             while (running.get()) {
-                ConsumerRecords<Void, SpecificRecordBase> records = this.consumer.poll(CONSUME_ATTEMPT_TIMEOUT);
-
-                for (ConsumerRecord<Void, SpecificRecordBase> record : records) {
-                    eventSimilarityService.handleRecord((EventSimilarityAvro) record.value());
-                    updateOffsets(record, currentOffsets);
+                ConsumerRecords<String, SpecificRecordBase> records = this.consumer.poll(CONSUME_ATTEMPT_TIMEOUT);
+                if (records.isEmpty()) {
+                    continue;
+                }
 
-                    processedSinceCommit++;
-                    if (processedSinceCommit % 10 == 0) {
-                        commitAsyncSafe(this.consumer, currentOffsets);
+                List<EventSimilarityAvro> similarities = new ArrayList<>(records.count());
+                for (ConsumerRecord<String, SpecificRecordBase> record : records) {
+                    if (record.value() instanceof EventSimilarityBatchAvro batch) {
+                        SimilarityBatchDecoder.decodeInto(batch, similarities);
+                    } else {
+                        similarities.add((EventSimilarityAvro) record.value());
                     }
                 }
+                for (EventSimilarity written : eventSimilarityService.handleBatch(similarities)) {
+                    similarityGraph.update(written.getEventA(), written.getEventB(), written.getSimilarity());
+                }
 
-                if (!records.isEmpty()) {
-                    commitAsyncSafe(this.consumer, currentOffsets);
+                for (ConsumerRecord<String, SpecificRecordBase> record : records) {
+                    updateOffsets(record, currentOffsets);
                 }
+                commitAsyncSafe(this.consumer, currentOffsets);
             }
 
         } catch (WakeupException ignored) {
@@ -90,14 +106,14 @@ public class EventSimilarityProcessor implements Runnable {
     @PreDestroy
     public void shutdown() {
         running.set(false);
-        KafkaConsumer<Void, SpecificRecordBase> c = this.consumer;
+        KafkaConsumer<String, SpecificRecordBase> c = this.consumer;
         if (c != null) {
             c.wakeup();
         }
     }
 
     private static void updateOffsets(
-            ConsumerRecord<Void, SpecificRecordBase> record,
+            ConsumerRecord<String, SpecificRecordBase> record,
             Map<TopicPartition, OffsetAndMetadata> currentOffsets
     ) {
         currentOffsets.put(
@@ -107,7 +123,7 @@ public class EventSimilarityProcessor implements Runnable {
     }
 
     private static void commitAsyncSafe(
-            Consumer<Void, SpecificRecordBase> consumer,
+            Consumer<String, SpecificRecordBase> consumer,
             Map<TopicPartition, OffsetAndMetadata> currentOffsets
     ) {
         if (currentOffsets.isEmpty()) {
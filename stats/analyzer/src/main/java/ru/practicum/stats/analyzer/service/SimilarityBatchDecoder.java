@@ -0,0 +1,40 @@
+package ru.practicum.stats.analyzer.service;
+
+import ru.practicum.ewm.stats.avro.EventSimilarityAvro;
+import ru.practicum.ewm.stats.avro.EventSimilarityBatchAvro;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Expands a version 2 batch message back into single pairs, see {@link EventSimilarityBatchAvro}.
+ */
+public final class SimilarityBatchDecoder {
+
+    private SimilarityBatchDecoder() {
+    }
+
+    public static void decodeInto(EventSimilarityBatchAvro batch, List<EventSimilarityAvro> out) {
+        List<Long> eventA = batch.getEventA();
+        List<Long> eventB = batch.getEventB();
+        List<Float> score = batch.getScore();
+        List<Long> age = batch.getAge();
+        if (eventA.size() != eventB.size() || eventA.size() != score.size()
+                || !age.isEmpty() && age.size() != eventA.size()) {
+            throw new IllegalArgumentException("Inconsistent similarity batch: " + eventA.size() + " / "
+                    + eventB.size() + " / " + score.size() + " / " + age.size() + " entries");
+        }
+
+        long latest = batch.getTimestamp().toEpochMilli();
+        long a = 0;
+        for (int i = 0; i < eventA.size(); i++) {
+            a += eventA.get(i);
+            out.add(EventSimilarityAvro.newBuilder()
+                    .setEventA(a)
+                    .setEventB(a + eventB.get(i))
+                    .setScore(score.get(i))
+                    .setTimestamp(Instant.ofEpochMilli(age.isEmpty() ? latest : latest - age.get(i)))
+                    .build());
+        }
+    }
+}
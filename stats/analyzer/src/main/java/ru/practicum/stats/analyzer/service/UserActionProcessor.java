@@ -7,15 +7,17 @@ import org.apache.avro.specific.SpecificRecordBase;
 import org.apache.kafka.clients.consumer.*;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.errors.WakeupException;
-import org.apache.kafka.common.serialization.VoidDeserializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
 import ru.practicum.ewm.stats.avro.UserActionAvro;
 import ru.practicum.stats.analyzer.config.UserActionDeserializer;
 import ru.practicum.stats.analyzer.dal.service.UserActionService;
+import ru.practicum.stats.analyzer.service.profile.UserProfileCache;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -30,9 +32,10 @@ public class UserActionProcessor implements Runnable {
     private static final Duration CONSUME_ATTEMPT_TIMEOUT = Duration.ofMillis(100);
 
     private final UserActionService userActionService;
+    private final UserProfileCache userProfileCache;
 
     private final AtomicBoolean running = new AtomicBoolean(true);
-    private volatile KafkaConsumer<Void, SpecificRecordBase> consumer;
+    private volatile KafkaConsumer<String, SpecificRecordBase> consumer;
 
     @Autowired
     private Environment env;
@@ -45,7 +48,7 @@ public class UserActionProcessor implements Runnable {
         properties.put(ConsumerConfig.CLIENT_ID_CONFIG, "UserActionConsumer");
         properties.put(ConsumerConfig.GROUP_ID_CONFIG, env.getProperty("analyzer.kafka.consumer1.properties.group.id"));
         properties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, env.getProperty("analyzer.kafka.bootstrap-servers"));
-        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, VoidDeserializer.class.getCanonicalName());
+        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class.getCanonicalName());
         properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, UserActionDeserializer.class.getCanonicalName());
         properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
 
@@ -55,23 +58,22 @@ public class UserActionProcessor implements Runnable {
         try {
             this.consumer.subscribe(List.of(topic));
 
-            int processedSinceCommit = 0;
             while (running.get()) {
-                ConsumerRecords<Void, SpecificRecordBase> records = this.consumer.poll(CONSUME_ATTEMPT_TIMEOUT);
-
-                for (ConsumerRecord<Void, SpecificRecordBase> record : records) {
-                    userActionService.handleRecord((UserActionAvro) record.value());
-                    updateOffsets(record, currentOffsets);
+                ConsumerRecords<String, SpecificRecordBase> records = this.consumer.poll(CONSUME_ATTEMPT_TIMEOUT);
+                if (records.isEmpty()) {
+                    continue;
+                }
 
-                    processedSinceCommit++;
-                    if (processedSinceCommit % 10 == 0) {
-                        commitAsyncSafe(this.consumer, currentOffsets);
-                    }
+                List<UserActionAvro> actions = new ArrayList<>(records.count());
+                for (ConsumerRecord<String, SpecificRecordBase> record : records) {
+                    actions.add((UserActionAvro) record.value());
                 }
+                userProfileCache.applyAll(userActionService.handleBatch(actions));
 
-                if (!records.isEmpty()) {
-                    commitAsyncSafe(this.consumer, currentOffsets);
+                for (ConsumerRecord<String, SpecificRecordBase> record : records) {
+                    updateOffsets(record, currentOffsets);
                 }
+                commitAsyncSafe(this.consumer, currentOffsets);
             }
 
         } catch (WakeupException ignored) {
@@ -91,14 +93,14 @@ public class UserActionProcessor implements Runnable {
     @PreDestroy
     public void shutdown() {
         running.set(false);
-        KafkaConsumer<Void, SpecificRecordBase> c = this.consumer;
+        KafkaConsumer<String, SpecificRecordBase> c = this.consumer;
         if (c != null) {
             c.wakeup();
         }
     }
 
     private static void updateOffsets(
-            ConsumerRecord<Void, SpecificRecordBase> record,
+            ConsumerRecord<String, SpecificRecordBase> record,
             Map<TopicPartition, OffsetAndMetadata> currentOffsets
     ) {
         currentOffsets.put(
@@ -108,7 +110,7 @@ public class UserActionProcessor implements Runnable {
     }
 
     private static void commitAsyncSafe(
-            Consumer<Void, SpecificRecordBase> consumer,
+            Consumer<String, SpecificRecordBase> consumer,
             Map<TopicPartition, OffsetAndMetadata> currentOffsets
     ) {
         if (currentOffsets.isEmpty()) {
@@ -0,0 +1,86 @@
+package ru.practicum.stats.analyzer.service.graph;
+
+import java.util.Arrays;
+
+/**
+ * Immutable neighbors of one event ordered by descending similarity. Updates produce a new
+ * instance, so readers can walk a list without locking while the consumer keeps writing.
+ */
+public final class NeighborList {
+    static final NeighborList EMPTY = new NeighborList(new long[0], new double[0], 0);
+
+    private final long[] ids;
+    private final double[] scores;
+    private final int size;
+
+    private NeighborList(long[] ids, double[] scores, int size) {
+        this.ids = ids;
+        this.scores = scores;
+        this.size = size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public long id(int index) {
+        return ids[index];
+    }
+
+    public double score(int index) {
+        return scores[index];
+    }
+
+    public double scoreOf(long id, double defaultValue) {
+        int index = indexOf(id);
+        return index < 0 ? defaultValue : scores[index];
+    }
+
+    NeighborList with(long id, double score, int capacity) {
+        int existing = indexOf(id);
+        if (existing < 0 && size >= capacity && score <= scores[size - 1]) {
+            return this;
+        }
+
+        int newSize = Math.min(existing < 0 ? size + 1 : size, capacity);
+        long[] newIds = new long[newSize];
+        double[] newScores = new double[newSize];
+        int target = 0;
+        boolean inserted = false;
+        for (int i = 0; i < size && target < newSize; i++) {
+            if (i == existing) {
+                continue;
+            }
+            if (!inserted && score > scores[i]) {
+                newIds[target] = id;
+                newScores[target++] = score;
+                inserted = true;
+                if (target == newSize) {
+                    break;
+                }
+            }
+            newIds[target] = ids[i];
+            newScores[target++] = scores[i];
+        }
+        if (!inserted && target < newSize) {
+            newIds[target] = id;
+            newScores[target++] = score;
+        }
+        return new NeighborList(newIds, newScores, target);
+    }
+
+    private int indexOf(long id) {
+        for (int i = 0; i < size; i++) {
+            if (ids[i] == id) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public String toString() {
+        return "NeighborList{ids=" + Arrays.toString(Arrays.copyOf(ids, size)) +
+                ", scores=" + Arrays.toString(Arrays.copyOf(scores, size)) + '}';
+    }
+}
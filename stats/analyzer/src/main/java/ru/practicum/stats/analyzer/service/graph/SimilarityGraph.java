@@ -0,0 +1,42 @@
+package ru.practicum.stats.analyzer.service.graph;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Memory-resident similarity graph keeping the top neighbors of every event. It is warmed
+ * from the similarities table on startup and then updated by the similarity consumer.
+ */
+@Slf4j
+@Component
+public class SimilarityGraph {
+    private final Map<Long, NeighborList> neighborsByEvent = new ConcurrentHashMap<>();
+    private final int capacity;
+
+    public SimilarityGraph(@Value("${analyzer.graph.neighbors:100}") int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("analyzer.graph.neighbors must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public void update(long eventA, long eventB, double score) {
+        if (eventA == eventB) {
+            return;
+        }
+        neighborsByEvent.compute(eventA, (k, list) -> (list == null ? NeighborList.EMPTY : list).with(eventB, score, capacity));
+        neighborsByEvent.compute(eventB, (k, list) -> (list == null ? NeighborList.EMPTY : list).with(eventA, score, capacity));
+    }
+
+    public NeighborList neighbors(long eventId) {
+        return neighborsByEvent.getOrDefault(eventId, NeighborList.EMPTY);
+    }
+
+    public int size() {
+        return neighborsByEvent.size();
+    }
+}
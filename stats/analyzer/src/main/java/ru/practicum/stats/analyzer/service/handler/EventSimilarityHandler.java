@@ -3,15 +3,19 @@ package ru.practicum.stats.analyzer.service.handler;
 import lombok.AllArgsConstructor;
 import org.springframework.stereotype.Component;
 import ru.practicum.grpc.stats.recommendations.RecommendedEventProto;
-import ru.practicum.stats.analyzer.dal.model.EventSimilarity;
-import ru.practicum.stats.analyzer.dal.model.UserAction;
+import ru.practicum.grpc.stats.recommendations.UserRecommendationsProto;
 import ru.practicum.stats.analyzer.dal.repo.InteractionsRepository;
-import ru.practicum.stats.analyzer.dal.repo.SimilaritiesRepository;
+import ru.practicum.stats.analyzer.service.graph.NeighborList;
+import ru.practicum.stats.analyzer.service.graph.SimilarityGraph;
+import ru.practicum.stats.analyzer.service.profile.UserProfile;
+import ru.practicum.stats.analyzer.service.profile.UserProfileCache;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 @Component
 @AllArgsConstructor
@@ -19,144 +23,95 @@ public class EventSimilarityHandler {
     private static final int K = 5;
 
     private final InteractionsRepository interactionsRepository;
-    private final SimilaritiesRepository similaritiesRepository;
+    private final SimilarityGraph similarityGraph;
+    private final UserProfileCache userProfileCache;
 
-    public List<RecommendedEventProto> getRecommendationsForUser(Long userId, long maxResults) {
+    public Stream<RecommendedEventProto> getRecommendationsForUser(Long userId, long maxResults) {
         if (maxResults <= 0) {
-            return List.of();
+            return Stream.empty();
         }
 
-        List<UserAction> userEventList = interactionsRepository.findByUserId(userId);
-        if (userEventList.isEmpty()) {
-            return List.of();
-        }
-
-        Set<Long> userEventsFull = userEventList.stream()
-                .map(UserAction::getEventId)
-                .collect(Collectors.toSet());
+        return recommend(userProfileCache.get(userId), maxResults, similarityGraph::neighbors);
+    }
 
-        Map<Long, Double> userRatingByEvent = new HashMap<>(userEventsFull.size());
-        for (UserAction ua : userEventList) {
-            userRatingByEvent.merge(ua.getEventId(), ua.getRating(), Math::max);
+    public Stream<UserRecommendationsProto> getRecommendationsForUsers(Collection<Long> userIds, long maxResults) {
+        if (maxResults <= 0 || userIds.isEmpty()) {
+            return Stream.empty();
         }
 
-        Set<Long> userEvents = userEventList.stream()
-                .sorted(Comparator.comparing(UserAction::getTs).reversed())
-                .map(UserAction::getEventId)
-                .limit(maxResults)
-                .collect(Collectors.toSet());
+        // profiles are loaded in one go and neighbor lists are shared between the users of the request
+        Set<Long> distinctUserIds = new LinkedHashSet<>(userIds);
+        Map<Long, UserProfile> profiles = userProfileCache.getAll(distinctUserIds);
+        Map<Long, NeighborList> neighborsByEvent = new HashMap<>();
+        Function<Long, NeighborList> neighbors = eventId ->
+                neighborsByEvent.computeIfAbsent(eventId, similarityGraph::neighbors);
 
-        if (userEvents.isEmpty()) {
-            return List.of();
-        }
+        return distinctUserIds.stream()
+                .map(userId -> UserRecommendationsProto.newBuilder()
+                        .setUserId(userId)
+                        .addAllEvent(recommend(profiles.get(userId), maxResults, neighbors).toList())
+                        .build());
+    }
 
-        Set<Long> notUserEvents = interactionsRepository.findEventIdsNotInteractedByUser(userId);
-        if (notUserEvents.isEmpty()) {
-            return List.of();
+    private Stream<RecommendedEventProto> recommend(UserProfile profile, long maxResults,
+                                                    Function<Long, NeighborList> neighborsOf) {
+        if (profile.isEmpty()) {
+            return Stream.empty();
         }
 
-        List<EventSimilarity> crossSimilarities = similaritiesRepository.findBetweenEventSets(userEvents, notUserEvents);
-        if (crossSimilarities.isEmpty()) {
-            return List.of();
-        }
+        List<Long> userEvents = profile.recentEvents(maxResults);
 
-        crossSimilarities.sort(Comparator.comparing(EventSimilarity::getSimilarity).reversed());
-        if (crossSimilarities.size() > maxResults) {
-            crossSimilarities = crossSimilarities.subList(0, (int) maxResults);
+        if (userEvents.isEmpty()) {
+            return Stream.empty();
         }
 
-        Map<Long, Double> sortedEvents = new HashMap<>();
-        for (EventSimilarity sim : crossSimilarities) {
-            Long candidate = notUserEvents.contains(sim.getEventA()) ? sim.getEventA() : sim.getEventB();
-            if (!sortedEvents.containsKey(candidate)) {
-                sortedEvents.put(candidate, sim.getSimilarity());
-            }
-            if (sortedEvents.size() == maxResults) {
-                break;
+        // candidates come only from neighbors of the recent events, already seen ones are filtered out
+        Map<Long, Double> bestScoreByCandidate = new HashMap<>();
+        for (Long userEvent : userEvents) {
+            NeighborList neighbors = neighborsOf.apply(userEvent);
+            for (int i = 0; i < neighbors.size(); i++) {
+                if (!profile.contains(neighbors.id(i))) {
+                    bestScoreByCandidate.merge(neighbors.id(i), neighbors.score(i), Math::max);
+                }
             }
         }
-
-        if (sortedEvents.isEmpty()) {
-            return List.of();
+        if (bestScoreByCandidate.isEmpty()) {
+            return Stream.empty();
         }
 
-        List<EventSimilarity> candidateToUser = similaritiesRepository.findBetweenEventSets(sortedEvents.keySet(), userEventsFull);
-
-        Map<Long, List<EventSimilarity>> simsByCandidate = new HashMap<>(sortedEvents.size());
-        for (EventSimilarity sim : candidateToUser) {
-            Long candidate = sortedEvents.containsKey(sim.getEventA()) ? sim.getEventA()
-                    : (sortedEvents.containsKey(sim.getEventB()) ? sim.getEventB() : null);
-            if (candidate != null) {
-                simsByCandidate.computeIfAbsent(candidate, k -> new ArrayList<>()).add(sim);
-            }
-        }
-
-        List<RecommendedEventProto> results = new ArrayList<>(sortedEvents.size());
-        for (Long eventId : sortedEvents.keySet()) {
-            List<EventSimilarity> sims = simsByCandidate.getOrDefault(eventId, List.of());
-
-            if (!sims.isEmpty()) {
-                sims.sort(Comparator.comparing(EventSimilarity::getSimilarity).reversed());
-                if (sims.size() > K) {
-                    sims = sims.subList(0, K);
-                }
-            }
-
-            double sumWeightedEstimates = 0.0;
-            double coefSum = 0.0;
-
-            for (EventSimilarity sim : sims) {
-                coefSum += sim.getSimilarity();
-
-                Long neighbor = Objects.equals(sim.getEventA(), eventId) ? sim.getEventB() : sim.getEventA();
-                Double rating = userRatingByEvent.get(neighbor);
-                if (rating != null) {
-                    sumWeightedEstimates += rating * sim.getSimilarity();
-                }
-            }
-
-            double score = sumWeightedEstimates / coefSum;
-            double scoreFormat = BigDecimal.valueOf(score)
-                    .setScale(2, RoundingMode.HALF_UP)
-                    .doubleValue();
-
-            results.add(RecommendedEventProto.newBuilder()
-                    .setEventId(eventId)
-                    .setScore(scoreFormat)
-                    .build());
+        TopK topCandidates = TopK.of(maxResults, bestScoreByCandidate.size());
+        for (Map.Entry<Long, Double> entry : bestScoreByCandidate.entrySet()) {
+            topCandidates.offer(entry.getKey(), entry.getValue());
         }
 
-        return results;
+        // candidates are scored lazily, so the caller can push each one as soon as it is ready
+        return Arrays.stream(topCandidates.drainIds())
+                .mapToObj(eventId -> predict(profile, neighborsOf.apply(eventId), eventId))
+                .filter(Objects::nonNull);
     }
 
-    public List<RecommendedEventProto> getSimilarEvents(Long userId, Long eventId, long maxResults) {
+    public Stream<RecommendedEventProto> getSimilarEvents(Long userId, Long eventId, long maxResults) {
         if (maxResults <= 0) {
-            return List.of();
+            return Stream.empty();
         }
 
-        List<EventSimilarity> eventSimilarityList = similaritiesRepository.findByEventAOrEventB(eventId);
-        if (eventSimilarityList.isEmpty()) {
-            return List.of();
+        NeighborList neighbors = similarityGraph.neighbors(eventId);
+        if (neighbors.size() == 0) {
+            return Stream.empty();
         }
 
-        Set<Long> userItemIds = interactionsRepository.findByUserId(userId).stream()
-                .map(UserAction::getEventId)
-                .collect(Collectors.toSet());
-
-        return eventSimilarityList.stream()
-                .filter(sim -> !userItemIds.contains(sim.getEventA()) || !userItemIds.contains(sim.getEventB()))
-                .map(sim -> mapperToProto(
-                        Objects.equals(sim.getEventA(), eventId) ? sim.getEventB() : sim.getEventA(),
-                        sim.getSimilarity()
-                ))
-                .sorted(Comparator.comparingDouble(RecommendedEventProto::getScore).reversed())
+        UserProfile profile = userProfileCache.get(userId);
+        boolean seenBase = profile.contains(eventId);
+
+        return IntStream.range(0, neighbors.size())
+                .filter(i -> !seenBase || !profile.contains(neighbors.id(i)))
                 .limit(maxResults)
-                .collect(Collectors.toList());
+                .mapToObj(i -> mapperToProto(neighbors.id(i), neighbors.score(i)));
     }
 
-    public List<RecommendedEventProto> getInteractionsCount(Set<Long> eventsIds) {
+    public Stream<RecommendedEventProto> getInteractionsCount(Set<Long> eventsIds) {
         if (eventsIds == null || eventsIds.isEmpty()) {
-            return List.of();
+            return Stream.empty();
         }
 
         List<InteractionsRepository.EventScoreSum> sums = interactionsRepository.sumRatingsByEventIds(eventsIds);
@@ -171,8 +126,36 @@ public class EventSimilarityHandler {
         }
 
         return recEventProtoList.stream()
-                .sorted(Comparator.comparingDouble(RecommendedEventProto::getScore).reversed())
-                .collect(Collectors.toList());
+                .sorted(Comparator.comparingDouble(RecommendedEventProto::getScore).reversed());
+    }
+
+    private RecommendedEventProto predict(UserProfile profile, NeighborList neighbors, long eventId) {
+        double sumWeightedEstimates = 0.0;
+        double coefSum = 0.0;
+        int used = 0;
+
+        for (int i = 0; i < neighbors.size() && used < K; i++) {
+            Double rating = profile.rating(neighbors.id(i));
+            if (rating == null) {
+                continue;
+            }
+            coefSum += neighbors.score(i);
+            sumWeightedEstimates += rating * neighbors.score(i);
+            used++;
+        }
+        if (coefSum <= 0.0) {
+            return null;
+        }
+
+        double score = sumWeightedEstimates / coefSum;
+        double scoreFormat = BigDecimal.valueOf(score)
+                .setScale(2, RoundingMode.HALF_UP)
+                .doubleValue();
+
+        return RecommendedEventProto.newBuilder()
+                .setEventId(eventId)
+                .setScore(scoreFormat)
+                .build();
     }
 
     private RecommendedEventProto mapperToProto(Long eventId, Double sum) {
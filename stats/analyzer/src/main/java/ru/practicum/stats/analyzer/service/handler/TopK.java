@@ -0,0 +1,97 @@
+package ru.practicum.stats.analyzer.service.handler;
+
+/**
+ * Bounded min-heap over primitive arrays that keeps the {@code k} highest scored ids seen so far.
+ * Selecting from n offers costs O(n log k) instead of sorting all n. Not thread-safe.
+ */
+public final class TopK {
+    private final long[] ids;
+    private final double[] scores;
+    private int size;
+
+    public TopK(int k) {
+        if (k < 0) {
+            throw new IllegalArgumentException("k must not be negative");
+        }
+        this.ids = new long[k];
+        this.scores = new double[k];
+    }
+
+    public static TopK of(long k, int upperBound) {
+        return new TopK((int) Math.min(k, upperBound));
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void offer(long id, double score) {
+        if (size < ids.length) {
+            ids[size] = id;
+            scores[size] = score;
+            siftUp(size++);
+        } else if (size > 0 && score > scores[0]) {
+            ids[0] = id;
+            scores[0] = score;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Drains the heap and returns the selected ids ordered by descending score.
+     */
+    public long[] drainIds() {
+        long[] result = new long[size];
+        for (int i = size - 1; i >= 0; i--) {
+            result[i] = ids[0];
+            removeMin();
+        }
+        return result;
+    }
+
+    private void removeMin() {
+        size--;
+        if (size > 0) {
+            ids[0] = ids[size];
+            scores[0] = scores[size];
+            siftDown(0);
+        }
+    }
+
+    private void siftUp(int index) {
+        long id = ids[index];
+        double score = scores[index];
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (scores[parent] <= score) {
+                break;
+            }
+            ids[index] = ids[parent];
+            scores[index] = scores[parent];
+            index = parent;
+        }
+        ids[index] = id;
+        scores[index] = score;
+    }
+
+    private void siftDown(int index) {
+        long id = ids[index];
+        double score = scores[index];
+        int half = size >>> 1;
+        while (index < half) {
+            int child = 2 * index + 1;
+            int right = child + 1;
+            if (right < size && scores[right] < scores[child]) {
+                child = right;
+            }
+            if (score <= scores[child]) {
+                break;
+            }
+            ids[index] = ids[child];
+            scores[index] = scores[child];
+            index = child;
+        }
+        ids[index] = id;
+        scores[index] = score;
+    }
+}
@@ -0,0 +1,84 @@
+package ru.practicum.stats.analyzer.service.profile;
+
+import ru.practicum.stats.analyzer.dal.model.UserAction;
+import ru.practicum.stats.analyzer.service.handler.TopK;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable view of a user's interactions: the best rating per event and the time it was set.
+ */
+public final class UserProfile {
+    private final Map<Long, Interaction> interactions;
+
+    private UserProfile(Map<Long, Interaction> interactions) {
+        this.interactions = interactions;
+    }
+
+    public static UserProfile of(Collection<UserAction> actions) {
+        Map<Long, Interaction> interactions = new HashMap<>(actions.size());
+        for (UserAction action : actions) {
+            merge(interactions, action);
+        }
+        return new UserProfile(interactions);
+    }
+
+    public boolean isEmpty() {
+        return interactions.isEmpty();
+    }
+
+    public boolean contains(long eventId) {
+        return interactions.containsKey(eventId);
+    }
+
+    public Set<Long> eventIds() {
+        return interactions.keySet();
+    }
+
+    public Double rating(long eventId) {
+        Interaction interaction = interactions.get(eventId);
+        return interaction == null ? null : interaction.rating();
+    }
+
+    public List<Long> recentEvents(long limit) {
+        TopK recent = TopK.of(limit, interactions.size());
+        for (Map.Entry<Long, Interaction> entry : interactions.entrySet()) {
+            recent.offer(entry.getKey(), entry.getValue().ts().toEpochMilli());
+        }
+
+        long[] ids = recent.drainIds();
+        List<Long> result = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            result.add(id);
+        }
+        return result;
+    }
+
+    UserProfile with(Collection<UserAction> actions) {
+        Map<Long, Interaction> updated = new HashMap<>(interactions);
+        boolean changed = false;
+        for (UserAction action : actions) {
+            changed |= merge(updated, action);
+        }
+        return changed ? new UserProfile(updated) : this;
+    }
+
+    // mirrors the upsert in the interactions table: only a higher rating replaces the stored one
+    private static boolean merge(Map<Long, Interaction> interactions, UserAction action) {
+        Interaction current = interactions.get(action.getEventId());
+        if (current != null && current.rating() >= action.getRating()) {
+            return false;
+        }
+        interactions.put(action.getEventId(), new Interaction(action.getRating(), action.getTs()));
+        return true;
+    }
+
+    private record Interaction(double rating, Instant ts) {
+    }
+}
@@ -0,0 +1,150 @@
+package ru.practicum.stats.analyzer.service.profile;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import ru.practicum.stats.analyzer.config.ProfileCacheConfig;
+import ru.practicum.stats.analyzer.dal.model.UserAction;
+import ru.practicum.stats.analyzer.dal.repo.InteractionsRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded LRU cache of user profiles with expiry after load. The user action processor writes
+ * through to profiles that are already cached; other users are loaded on the next read.
+ * Every write-through bumps a version; a load that raced with one is returned but not cached.
+ */
+@Component
+public class UserProfileCache {
+    private static final int LOAD_CHUNK_SIZE = 1000;
+
+    private final InteractionsRepository repository;
+    private final long ttlNanos;
+    private final Map<Long, CachedProfile> profiles;
+    private final AtomicLong version = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+
+    public UserProfileCache(InteractionsRepository repository, ProfileCacheConfig config, MeterRegistry registry) {
+        this.repository = repository;
+        this.ttlNanos = config.getTtl().toNanos();
+        int maxSize = config.getMaxSize();
+        this.profiles = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, CachedProfile> eldest) {
+                if (size() > maxSize) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        this.hits = Counter.builder("analyzer.profile.cache.requests").tag("result", "hit").register(registry);
+        this.misses = Counter.builder("analyzer.profile.cache.requests").tag("result", "miss").register(registry);
+        this.evictions = Counter.builder("analyzer.profile.cache.evictions").register(registry);
+        Gauge.builder("analyzer.profile.cache.size", this, UserProfileCache::size).register(registry);
+    }
+
+    public UserProfile get(long userId) {
+        long now = System.nanoTime();
+        synchronized (profiles) {
+            CachedProfile cached = profiles.get(userId);
+            if (cached != null && now - cached.loadedAt() < ttlNanos) {
+                hits.increment();
+                return cached.profile();
+            }
+        }
+
+        misses.increment();
+        long loadVersion = version.get();
+        UserProfile profile = UserProfile.of(repository.findByUserId(userId));
+        synchronized (profiles) {
+            if (version.get() == loadVersion) {
+                profiles.put(userId, new CachedProfile(profile, now));
+            }
+        }
+        return profile;
+    }
+
+    public Map<Long, UserProfile> getAll(Collection<Long> userIds) {
+        long now = System.nanoTime();
+        Map<Long, UserProfile> result = new HashMap<>(userIds.size());
+        List<Long> missing = new ArrayList<>();
+        synchronized (profiles) {
+            for (Long userId : userIds) {
+                CachedProfile cached = profiles.get(userId);
+                if (cached != null && now - cached.loadedAt() < ttlNanos) {
+                    result.put(userId, cached.profile());
+                } else {
+                    missing.add(userId);
+                }
+            }
+        }
+        hits.increment(result.size());
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        misses.increment(missing.size());
+        long loadVersion = version.get();
+        Map<Long, List<UserAction>> actionsByUser = new HashMap<>();
+        for (int from = 0; from < missing.size(); from += LOAD_CHUNK_SIZE) {
+            List<Long> chunk = missing.subList(from, Math.min(from + LOAD_CHUNK_SIZE, missing.size()));
+            for (UserAction action : repository.findByUserIdIn(chunk)) {
+                actionsByUser.computeIfAbsent(action.getUserId(), k -> new ArrayList<>()).add(action);
+            }
+        }
+
+        synchronized (profiles) {
+            boolean current = version.get() == loadVersion;
+            for (Long userId : missing) {
+                UserProfile profile = UserProfile.of(actionsByUser.getOrDefault(userId, List.of()));
+                if (current) {
+                    profiles.put(userId, new CachedProfile(profile, now));
+                }
+                result.put(userId, profile);
+            }
+        }
+        return result;
+    }
+
+    public void applyAll(Collection<UserAction> actions) {
+        if (actions.isEmpty()) {
+            return;
+        }
+
+        Map<Long, List<UserAction>> byUser = new HashMap<>();
+        for (UserAction action : actions) {
+            byUser.computeIfAbsent(action.getUserId(), k -> new ArrayList<>()).add(action);
+        }
+
+        synchronized (profiles) {
+            version.incrementAndGet();
+            for (Map.Entry<Long, List<UserAction>> entry : byUser.entrySet()) {
+                CachedProfile cached = profiles.get(entry.getKey());
+                if (cached != null) {
+                    profiles.put(entry.getKey(), new CachedProfile(cached.profile().with(entry.getValue()), cached.loadedAt()));
+                }
+            }
+        }
+    }
+
+    public int size() {
+        synchronized (profiles) {
+            return profiles.size();
+        }
+    }
+
+    private record CachedProfile(UserProfile profile, long loadedAt) {
+    }
+}
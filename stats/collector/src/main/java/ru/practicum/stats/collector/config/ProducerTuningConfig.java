@@ -0,0 +1,20 @@
+package ru.practicum.stats.collector.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@Getter
+@Setter
+@ConfigurationProperties("collector.kafka.producer.tuning")
+public class ProducerTuningConfig {
+    private int batchSize = 64 * 1024;
+    private Duration linger = Duration.ofMillis(10);
+    private String compressionType = "lz4";
+    private String acks = "all";
+    private boolean idempotence = true;
+}
@@ -1,34 +1,7 @@
 package ru.practicum.stats.collector.config;
 
-import org.apache.avro.io.BinaryEncoder;
-import org.apache.avro.io.DatumWriter;
-import org.apache.avro.io.EncoderFactory;
-import org.apache.avro.specific.SpecificDatumWriter;
-import org.apache.avro.specific.SpecificRecordBase;
-import org.apache.kafka.common.errors.SerializationException;
-import org.apache.kafka.common.serialization.Serializer;
+import ru.practicum.ewm.stats.avro.UserActionAvro;
+import ru.practicum.stats.serialization.BaseAvroSerializer;
 
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-
-public class UserActionAvroSerializer implements Serializer<SpecificRecordBase> {
-    private final EncoderFactory encoderFactory = EncoderFactory.get();
-    private BinaryEncoder encoder;
-
-    public byte[] serialize(String topic, SpecificRecordBase data) {
-        try (ByteArrayOutputStream out = new ByteArrayOutputStream()) {
-            byte[] result = null;
-            encoder = encoderFactory.binaryEncoder(out, encoder);
-            if (data != null) {
-                DatumWriter<SpecificRecordBase> writer = new SpecificDatumWriter<>(data.getSchema());
-                writer.write(data, encoder);
-                encoder.flush();
-                result = out.toByteArray();
-            }
-            return result;
-        } catch (IOException ex) {
-            throw new SerializationException("Error with topic serialization [" + topic + "]", ex);
-        }
-    }
+public class UserActionAvroSerializer extends BaseAvroSerializer<UserActionAvro> {
 }
-
@@ -2,9 +2,12 @@ package ru.practicum.stats.collector.config;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.kafka.KafkaClientMetrics;
 import org.apache.avro.specific.SpecificRecordBase;
 import org.apache.kafka.clients.producer.KafkaProducer;
 import org.apache.kafka.clients.producer.Producer;
+import org.apache.kafka.clients.producer.ProducerConfig;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -20,10 +23,11 @@ public class UserActionProducerConfiguration {
 
 
     @Bean
-    UserActionClient getProducerClient() {
+    UserActionClient getProducerClient(ProducerTuningConfig tuning, MeterRegistry registry) {
         return new UserActionClient() {
 
             private Producer<String, SpecificRecordBase> producer;
+            private KafkaClientMetrics metrics;
 
             public Producer<String, SpecificRecordBase> getProducer() {
                 if (producer == null) {
@@ -33,11 +37,23 @@ public class UserActionProducerConfiguration {
             }
 
             private void initProducer() {
-
-                producer = new KafkaProducer<>(properties);
+                Properties tuned = new Properties();
+                tuned.putAll(properties);
+                tuned.put(ProducerConfig.BATCH_SIZE_CONFIG, tuning.getBatchSize());
+                tuned.put(ProducerConfig.LINGER_MS_CONFIG, (int) tuning.getLinger().toMillis());
+                tuned.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, tuning.getCompressionType());
+                tuned.put(ProducerConfig.ACKS_CONFIG, tuning.getAcks());
+                tuned.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, tuning.isIdempotence());
+
+                producer = new KafkaProducer<>(tuned);
+                metrics = new KafkaClientMetrics(producer);
+                metrics.bindTo(registry);
             }
 
             public void stop() {
+                if (metrics != null) {
+                    metrics.close();
+                }
                 if (producer != null) {
                     producer.close();
                 }
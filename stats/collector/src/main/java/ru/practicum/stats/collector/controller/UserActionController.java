@@ -8,11 +8,18 @@ import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.server.service.GrpcService;
 import ru.practicum.grpc.stats.collector.UserActionControllerGrpc;
 import ru.practicum.grpc.stats.useraction.UserActionProto;
+import ru.practicum.grpc.stats.useraction.UserActionsAckProto;
 import ru.practicum.stats.collector.service.handler.UserActionHandler;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
 @Slf4j
 @GrpcService
 public class UserActionController extends UserActionControllerGrpc.UserActionControllerImplBase {
+    private static final int ACK_EVERY = 500;
 
     private final UserActionHandler userActionHandler;
 
@@ -23,7 +30,7 @@ public class UserActionController extends UserActionControllerGrpc.UserActionCon
     @Override
     public void collectUserAction(UserActionProto request, StreamObserver<Empty> responseObserver) {
         try {
-            log.info("GRPC message received");
+            log.debug("GRPC message received");
 
             userActionHandler.handle(request);
 
@@ -37,4 +44,75 @@ public class UserActionController extends UserActionControllerGrpc.UserActionCon
             ));
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public StreamObserver<UserActionProto> collectUserActions(StreamObserver<UserActionsAckProto> responseObserver) {
+        return new StreamObserver<>() {
+            private List<UserActionProto> batch = new ArrayList<>(ACK_EVERY);
+            // each ack waits for the broker to acknowledge its batch and every batch before it
+            private CompletableFuture<Void> acked = CompletableFuture.completedFuture(null);
+            private long accepted;
+            private volatile boolean failed;
+
+            @Override
+            public void onNext(UserActionProto action) {
+                if (failed) {
+                    return;
+                }
+                batch.add(action);
+                if (batch.size() >= ACK_EVERY) {
+                    flush();
+                }
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                log.warn("User action stream aborted by client, dropping {} unsent actions: {}", batch.size(), t.getMessage());
+                failed = true;
+                batch.clear();
+            }
+
+            @Override
+            public void onCompleted() {
+                if (failed) {
+                    return;
+                }
+                flush();
+                acked.thenRun(() -> {
+                    log.debug("User action stream completed, {} actions accepted", accepted);
+                    responseObserver.onCompleted();
+                });
+            }
+
+            private void flush() {
+                if (batch.isEmpty()) {
+                    return;
+                }
+                List<UserActionProto> sending = batch;
+                batch = new ArrayList<>(ACK_EVERY);
+
+                CompletableFuture<Void> sent;
+                try {
+                    sent = userActionHandler.handleAll(sending);
+                } catch (Exception e) {
+                    sent = CompletableFuture.failedFuture(e);
+                }
+                CompletableFuture<Void> batchSent = sent;
+                acked = acked.thenCompose(ignored -> batchSent).whenComplete((ignored, e) -> {
+                    if (e == null) {
+                        accepted += sending.size();
+                        responseObserver.onNext(UserActionsAckProto.newBuilder().setAccepted(accepted).build());
+                    } else if (!failed) {
+                        failed = true;
+                        Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                        responseObserver.onError(new StatusRuntimeException(
+                                Status.INTERNAL
+                                        .withDescription(cause.getLocalizedMessage())
+                                        .withCause(cause)
+                        ));
+                    }
+                });
+            }
+        };
+    }
+}
@@ -1,29 +1,57 @@
 package ru.practicum.stats.collector.service;
 
-import lombok.AllArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.avro.specific.SpecificRecordBase;
 import org.apache.kafka.clients.producer.ProducerRecord;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import ru.practicum.ewm.stats.avro.UserActionAvro;
 import ru.practicum.stats.collector.config.UserActionClient;
-import org.springframework.core.env.Environment;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @Service
-@AllArgsConstructor
 public class UserActionKafkaProducer {
     private final UserActionClient clientProducer;
+    private final String producerTopic;
 
-    @Autowired
-    private Environment env;
+    private final Timer sendLatency;
+    private final Counter sendErrors;
 
-    public void sendUserActionToKafka(SpecificRecordBase message) {
+    public UserActionKafkaProducer(UserActionClient clientProducer,
+                                   @Value("${collector.kafka.producer.topic}") String producerTopic,
+                                   MeterRegistry registry) {
+        this.clientProducer = clientProducer;
+        this.producerTopic = producerTopic;
+        this.sendLatency = Timer.builder("collector.kafka.send.latency")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.sendErrors = Counter.builder("collector.kafka.send.errors").register(registry);
+    }
 
-        String producerTopic = env.getProperty("collector.kafka.producer.topic");
+    // keyed by user: the aggregator shards its state by user, so all actions of a user must share a partition
+    public CompletableFuture<Void> sendUserActionToKafka(UserActionAvro message) {
+        ProducerRecord<String, SpecificRecordBase> record =
+                new ProducerRecord<>(producerTopic, String.valueOf(message.getUserId()), message);
 
-        ProducerRecord<String, SpecificRecordBase> record = new ProducerRecord<>(producerTopic, message);
-        clientProducer.getProducer().send(record);
+        CompletableFuture<Void> sent = new CompletableFuture<>();
+        long start = System.nanoTime();
+        clientProducer.getProducer().send(record, (metadata, exception) -> {
+            sendLatency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            if (exception != null) {
+                sendErrors.increment();
+                log.warn("Failed to send user action to Kafka: {}", message, exception);
+                sent.completeExceptionally(exception);
+            } else {
+                sent.complete(null);
+            }
+        });
+        return sent;
     }
 
 }
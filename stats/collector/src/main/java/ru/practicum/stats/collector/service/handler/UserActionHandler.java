@@ -7,6 +7,8 @@ import ru.practicum.grpc.stats.useraction.UserActionProto;
 import ru.practicum.stats.collector.service.UserActionKafkaProducer;
 
 import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Component
 public class UserActionHandler {
@@ -29,4 +31,12 @@ public class UserActionHandler {
         UserActionAvro record = mapToAvro(userActionProto);
         producer.sendUserActionToKafka(record);
     }
+
+    public CompletableFuture<Void> handleAll(List<UserActionProto> userActionProtos) {
+        CompletableFuture<?>[] sent = new CompletableFuture<?>[userActionProtos.size()];
+        for (int i = 0; i < sent.length; i++) {
+            sent[i] = producer.sendUserActionToKafka(mapToAvro(userActionProtos.get(i)));
+        }
+        return CompletableFuture.allOf(sent);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,87 @@
+package ru.practicum.stats.serialization;
+
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import ru.practicum.ewm.stats.avro.ActionTypeAvro;
+import ru.practicum.ewm.stats.avro.EventSimilarityAvro;
+import ru.practicum.ewm.stats.avro.UserActionAvro;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One record per operation. Run with the GC profiler to read gc.alloc.rate.norm as bytes
+ * allocated per record:
+ * mvn -P benchmarks -pl stats/serialization/avro-schemas -am test-compile exec:exec -Djmh.args="BaseAvroSerializer -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BaseAvroSerializerBenchmark {
+
+    @Param({"USER_ACTION", "EVENT_SIMILARITY"})
+    public String record;
+
+    private final BaseAvroSerializer<SpecificRecordBase> serializer = new BaseAvroSerializer<>();
+    private final ByteBuffer direct = ByteBuffer.allocateDirect(1024);
+    private SpecificRecordBase data;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Instant timestamp = Instant.ofEpochMilli(1_700_000_000_000L);
+        data = switch (record) {
+            case "USER_ACTION" -> UserActionAvro.newBuilder()
+                    .setUserId(1_234)
+                    .setEventId(56_789)
+                    .setActionType(ActionTypeAvro.ACTION_LIKE)
+                    .setTimestamp(timestamp)
+                    .build();
+            default -> EventSimilarityAvro.newBuilder()
+                    .setEventA(1_234)
+                    .setEventB(56_789)
+                    .setScore(0.87)
+                    .setTimestamp(timestamp)
+                    .build();
+        };
+    }
+
+    @Benchmark
+    public byte[] freshWriterPerRecord() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryEncoder encoder = EncoderFactory.get().binaryEncoder(out, null);
+        new SpecificDatumWriter<SpecificRecordBase>(data.getSchema()).write(data, encoder);
+        encoder.flush();
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize("stats.benchmark", data);
+    }
+
+    @Benchmark
+    public int encodeToDirectBuffer() {
+        direct.clear();
+        return serializer.encode(data, direct);
+    }
+}
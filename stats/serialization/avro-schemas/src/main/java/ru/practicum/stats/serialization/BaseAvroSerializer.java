@@ -0,0 +1,114 @@
+package ru.practicum.stats.serialization;
+
+import org.apache.avro.Schema;
+import org.apache.avro.io.BinaryEncoder;
+import org.apache.avro.io.DatumWriter;
+import org.apache.avro.io.EncoderFactory;
+import org.apache.avro.specific.SpecificDatumWriter;
+import org.apache.avro.specific.SpecificRecordBase;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.serialization.Serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+
+/**
+ * Each sending thread keeps its own output buffer, encoder and writer, so records are encoded
+ * without per-call allocations apart from the resulting byte array. Callers that own a buffer
+ * can skip that array with {@link #encode(SpecificRecordBase, ByteBuffer)}.
+ */
+public class BaseAvroSerializer<T extends SpecificRecordBase> implements Serializer<T> {
+    private static final int INITIAL_BUFFER_SIZE = 256;
+    private static final int MAX_RETAINED_BUFFER_SIZE = 64 * 1024;
+
+    private final EncoderFactory encoderFactory = EncoderFactory.get();
+    private final ThreadLocal<EncodingState> state = ThreadLocal.withInitial(EncodingState::new);
+
+    @Override
+    public byte[] serialize(String topic, T data) {
+        if (data == null) {
+            return null;
+        }
+
+        EncodingState current = state.get();
+        try {
+            current.out.reset();
+            current.encoder = encoderFactory.directBinaryEncoder(current.out, current.encoder);
+            current.writerFor(data.getSchema()).write(data, current.encoder);
+            current.encoder.flush();
+            return current.out.toByteArray();
+        } catch (IOException ex) {
+            throw new SerializationException("Error with data serialization [" + topic + "]", ex);
+        } finally {
+            if (current.out.capacity() > MAX_RETAINED_BUFFER_SIZE) {
+                current.out = new ReusableOutputStream();
+                current.encoder = null;
+            }
+        }
+    }
+
+    /**
+     * Encodes {@code data} into {@code target} at its position and returns the number of bytes written.
+     * On failure, including a full buffer, the position is left unchanged.
+     */
+    public int encode(T data, ByteBuffer target) {
+        EncodingState current = state.get();
+        int start = target.position();
+        try {
+            current.bufferOut.target = target;
+            current.encoder = encoderFactory.directBinaryEncoder(current.bufferOut, current.encoder);
+            current.writerFor(data.getSchema()).write(data, current.encoder);
+            current.encoder.flush();
+            return target.position() - start;
+        } catch (IOException | BufferOverflowException ex) {
+            target.position(start);
+            throw new SerializationException("Error with data serialization into buffer", ex);
+        } finally {
+            current.bufferOut.target = null;
+        }
+    }
+
+    private static final class EncodingState {
+        private ReusableOutputStream out = new ReusableOutputStream();
+        private final BufferOutputStream bufferOut = new BufferOutputStream();
+        private BinaryEncoder encoder;
+        private Schema schema;
+        private DatumWriter<SpecificRecordBase> writer;
+
+        DatumWriter<SpecificRecordBase> writerFor(Schema recordSchema) {
+            if (writer == null || schema != recordSchema) {
+                schema = recordSchema;
+                writer = new SpecificDatumWriter<>(recordSchema);
+            }
+            return writer;
+        }
+    }
+
+    private static final class ReusableOutputStream extends ByteArrayOutputStream {
+
+        ReusableOutputStream() {
+            super(INITIAL_BUFFER_SIZE);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+
+    private static final class BufferOutputStream extends OutputStream {
+        private ByteBuffer target;
+
+        @Override
+        public void write(int b) {
+            target.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            target.put(b, off, len);
+        }
+    }
+}
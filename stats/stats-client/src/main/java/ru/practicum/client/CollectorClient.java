@@ -1,30 +1,161 @@
 package ru.practicum.client;
 
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 import ru.practicum.grpc.stats.collector.UserActionControllerGrpc;
 import ru.practicum.grpc.stats.useraction.UserActionProto;
+import ru.practicum.grpc.stats.useraction.UserActionsAckProto;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fire-and-forget client for the collector. Callers only enqueue actions into a bounded queue;
+ * a background sender drains it in batches, each sent over one CollectUserActions stream.
+ * When the queue is full new actions are dropped and counted rather than blocking the caller.
+ */
 @Slf4j
 @Component
 public class CollectorClient {
 
     @GrpcClient("collector")
-    private UserActionControllerGrpc.UserActionControllerBlockingStub collectorStub;
+    private UserActionControllerGrpc.UserActionControllerStub collectorStub;
+
+    private final CollectorClientConfig config;
+    private final BlockingQueue<UserActionProto> queue;
+    private final Semaphore inFlight;
+
+    private final Counter enqueued;
+    private final Counter dropped;
+    private final Counter sent;
+    private final Counter failed;
+
+    private volatile boolean running = true;
+    private Thread sender;
+
+    public CollectorClient(CollectorClientConfig config, ObjectProvider<MeterRegistry> registryProvider) {
+        this.config = config;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        this.inFlight = new Semaphore(config.getMaxInFlightBatches());
+
+        MeterRegistry registry = registryProvider.getIfAvailable(SimpleMeterRegistry::new);
+        this.enqueued = Counter.builder("stats.collector.client.actions").tag("result", "enqueued").register(registry);
+        this.dropped = Counter.builder("stats.collector.client.actions").tag("result", "dropped").register(registry);
+        this.sent = Counter.builder("stats.collector.client.actions").tag("result", "sent").register(registry);
+        this.failed = Counter.builder("stats.collector.client.actions").tag("result", "failed").register(registry);
+        Gauge.builder("stats.collector.client.queue.size", queue, BlockingQueue::size).register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        sender = new Thread(this::drainLoop, "CollectorClientSender");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        sender.join(config.getShutdownTimeout().toMillis());
+        if (!queue.isEmpty()) {
+            log.warn("Collector client stopped with {} unsent user actions", queue.size());
+        }
+    }
 
     public void sendUserActionToCollector(UserActionProto record) {
-        try {
-            if (collectorStub == null) {
-                log.warn("Collector gRPC stub is not initialized. Skipping user action: {}", record.getAllFields());
+        if (queue.offer(record)) {
+            enqueued.increment();
+        } else {
+            dropped.increment();
+            log.debug("Collector client queue is full. Dropping user action: {}", record.getAllFields());
+        }
+    }
+
+    private void drainLoop() {
+        List<UserActionProto> batch = new ArrayList<>(config.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                UserActionProto first = queue.poll(config.getFlushInterval().toMillis(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, config.getBatchSize() - 1);
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 return;
+            } catch (Exception e) {
+                failed.increment(batch.size());
+                log.warn("Failed to send {} user actions to collector. Error: {}", batch.size(), e.getMessage(), e);
+            } finally {
+                batch.clear();
             }
-            log.info("Data has been transfered: {}", record.getAllFields());
-            collectorStub.collectUserAction(record);
-        } catch (Exception e) {
-            log.warn("Failed to send user action to collector. Skipping. Record: {}. Error: {}",
-                    record.getAllFields(), e.getMessage(), e);
         }
     }
 
-}
\ No newline at end of file
+    private void send(List<UserActionProto> batch) throws InterruptedException {
+        if (collectorStub == null) {
+            dropped.increment(batch.size());
+            log.warn("Collector gRPC stub is not initialized. Skipping {} user actions", batch.size());
+            return;
+        }
+
+        int size = batch.size();
+        inFlight.acquire();
+        StreamObserver<UserActionProto> requestObserver;
+        try {
+            requestObserver = collectorStub
+                    .withDeadlineAfter(config.getDeadline().toMillis(), TimeUnit.MILLISECONDS)
+                    .collectUserActions(new StreamObserver<>() {
+                        private long accepted;
+
+                        @Override
+                        public void onNext(UserActionsAckProto ack) {
+                            accepted = ack.getAccepted();
+                        }
+
+                        @Override
+                        public void onError(Throwable t) {
+                            inFlight.release();
+                            sent.increment(accepted);
+                            failed.increment(size - accepted);
+                            log.warn("Failed to send {} user actions to collector. Error: {}", size - accepted, t.getMessage());
+                        }
+
+                        @Override
+                        public void onCompleted() {
+                            inFlight.release();
+                            sent.increment(size);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            // the call never started, so no response observer will release the permit
+            inFlight.release();
+            throw e;
+        }
+
+        try {
+            for (UserActionProto record : batch) {
+                requestObserver.onNext(record);
+            }
+            requestObserver.onCompleted();
+        } catch (RuntimeException e) {
+            // cancels the call, failures are counted by the response observer
+            requestObserver.onError(e);
+        }
+    }
+}
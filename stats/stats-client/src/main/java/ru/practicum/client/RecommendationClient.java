@@ -7,8 +7,11 @@ import ru.practicum.grpc.stats.analyzer.RecommendationsControllerGrpc;
 import ru.practicum.grpc.stats.recommendations.InteractionsCountRequestProto;
 import ru.practicum.grpc.stats.recommendations.RecommendedEventProto;
 import ru.practicum.grpc.stats.recommendations.SimilarEventsRequestProto;
+import ru.practicum.grpc.stats.recommendations.UserPredictionsBatchRequestProto;
 import ru.practicum.grpc.stats.recommendations.UserPredictionsRequestProto;
+import ru.practicum.grpc.stats.recommendations.UserRecommendationsProto;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Spliterator;
@@ -62,7 +65,17 @@ public class RecommendationClient {
         return asStream(results);
     }
 
-    private Stream<RecommendedEventProto> asStream(Iterator<RecommendedEventProto> iterator) {
+    public Stream<UserRecommendationsProto> getRecommendationsForUsers(Collection<Long> userIds, int maxResults) {
+        UserPredictionsBatchRequestProto request = UserPredictionsBatchRequestProto.newBuilder()
+                .addAllUserId(userIds)
+                .setMaxResults(maxResults)
+                .build();
+
+        Iterator<UserRecommendationsProto> results = clientStub.getRecommendationsForUsers(request);
+        return asStream(results);
+    }
+
+    private <T> Stream<T> asStream(Iterator<T> iterator) {
         return StreamSupport.stream(
                 Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED),
                 false